@@ -27,6 +27,9 @@
 
 import com.flowpowered.math.vector.Vector3d;
 import com.flowpowered.math.vector.Vector3i;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -36,12 +39,15 @@
 import me.ryanhamshire.griefprevention.api.claim.ClaimResult;
 import me.ryanhamshire.griefprevention.api.claim.ClaimResultType;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
 import me.ryanhamshire.griefprevention.claim.ClaimsMode;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
 import me.ryanhamshire.griefprevention.claim.GPClaimResult;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.ClaimTemplateStorage;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
+import me.ryanhamshire.griefprevention.configuration.category.PlayerDataCategory;
 import me.ryanhamshire.griefprevention.configuration.type.DimensionConfig;
 import me.ryanhamshire.griefprevention.configuration.type.GlobalConfig;
 import me.ryanhamshire.griefprevention.configuration.type.WorldConfig;
@@ -50,6 +56,7 @@
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.util.WordFinder;
 import net.minecraft.util.math.ChunkPos;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.entity.living.player.User;
@@ -82,8 +89,11 @@
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 //singleton class which manages all GriefPrevention data (except for config options)
 public abstract class DataStore {
 
@@ -96,6 +106,7 @@ public abstract class DataStore {
     public static Map<String, ClaimTemplateStorage> globalTemplates = new HashMap<>();
     public static GriefPreventionConfig<GlobalConfig> globalConfig;
     public static Map<UUID, GPPlayerData> GLOBAL_PLAYER_DATA = Maps.newHashMap();
+    public static Cache<UUID, GPPlayerData> GLOBAL_OFFLINE_PLAYER_DATA = CacheBuilder.newBuilder().maximumSize(0).build();
     public static boolean USE_GLOBAL_PLAYER_STORAGE = true;
     public static Map<ClaimType, Map<String, Boolean>> CLAIM_FLAG_DEFAULTS = Maps.newHashMap();
 
@@ -156,6 +167,7 @@ void initialize() throws Exception {
                 globalPlayerDataFolder.mkdirs();
             }
         }
+        GLOBAL_OFFLINE_PLAYER_DATA = createOfflinePlayerDataCache();
 
         // load up all the messages from messages.hocon
        // this.loadMessages();
@@ -288,7 +300,57 @@ private void saveSoftMutes() {
         }
     }
 
-    // removes cached player data from memory
+    // Offline player data is bounded by size and idle time, evicted data is saved before it is dropped
+    public static Cache<UUID, GPPlayerData> createOfflinePlayerDataCache() {
+        final PlayerDataCategory playerDataConfig = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata;
+        return CacheBuilder.newBuilder()
+                .maximumSize(Math.max(0, playerDataConfig.offlineCacheSize))
+                .expireAfterAccess(Math.max(1, playerDataConfig.offlineCacheExpiration), TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener((RemovalNotification<UUID, GPPlayerData> notification) -> {
+                    if (notification.wasEvicted()) {
+                        notification.getValue().getStorageData().save();
+                    }
+                })
+                .build();
+    }
+
+    // number of online players with player data in memory
+    public int getOnlinePlayerDataCount() {
+        if (USE_GLOBAL_PLAYER_STORAGE) {
+            return GLOBAL_PLAYER_DATA.size();
+        }
+        int count = 0;
+        for (GPClaimManager claimWorldManager : this.claimWorldManagers.values()) {
+            count += claimWorldManager.getPlayerDataMap().size();
+        }
+        return count;
+    }
+
+    // number of offline players with player data in memory
+    public long getOfflinePlayerDataCount() {
+        if (USE_GLOBAL_PLAYER_STORAGE) {
+            return GLOBAL_OFFLINE_PLAYER_DATA.size();
+        }
+        long count = 0;
+        for (GPClaimManager claimWorldManager : this.claimWorldManagers.values()) {
+            count += claimWorldManager.getOfflinePlayerDataCache().size();
+        }
+        return count;
+    }
+
+    public long getEvictedPlayerDataCount() {
+        if (USE_GLOBAL_PLAYER_STORAGE) {
+            return GLOBAL_OFFLINE_PLAYER_DATA.stats().evictionCount();
+        }
+        long count = 0;
+        for (GPClaimManager claimWorldManager : this.claimWorldManagers.values()) {
+            count += claimWorldManager.getOfflinePlayerDataCache().stats().evictionCount();
+        }
+        return count;
+    }
+
+    // moves player data of a player that went offline to the offline cache
     public void clearCachedPlayerData(WorldProperties worldProperties, UUID playerUniqueId) {
         this.getClaimWorldManager(worldProperties).removePlayer(playerUniqueId);
     }
@@ -297,6 +359,33 @@ public void clearCachedPlayerData(WorldProperties worldProperties, UUID playerUn
 
     public abstract void deleteClaimFromSecondaryStorage(GPClaim claim);
 
+    // called after the claims of a world have been saved, stores that keep a claim snapshot override this
+    public void writeClaimSnapshot(GPClaimManager claimManager) {
+    }
+
+    // whether claims are stored in their own claim files
+    public boolean usesClaimFiles() {
+        return true;
+    }
+
+    // persists the snapshot taken by ClaimStorageData.save()
+    public void saveClaimStorage(ClaimStorageData claimStorage, CommentedConfigurationNode snapshot) {
+        ClaimStorageData.WRITER.write(claimStorage.filePath, snapshot);
+    }
+
+    // moves a claim's file after its type or parent changed
+    public void moveClaimStorage(Path from, Path to) throws IOException {
+        // the claim file must be written before it can be moved, other queued writes are not waited on
+        ClaimStorageData.WRITER.flush(from);
+        Files.createParentDirs(to.toFile());
+        Files.move(from.toFile(), to.toFile());
+    }
+
+    // blocks until every queued claim write is persisted
+    public void flushClaimWrites() {
+        ClaimStorageData.WRITER.flush();
+    }
+
     // finds a claim by ID
     public Claim getClaim(WorldProperties worldProperties, UUID id) {
         return this.getClaimWorldManager(worldProperties).getClaimByUUID(id).orElse(null);
@@ -370,6 +459,7 @@ public void extendClaim(GPClaim claim, int newDepth) {
         }
 
         claim.updateClaimStorageData();
+        claim.updateOwnerClaimBlocks();
     }
 
     public ClaimResult createAdminClaim(Claim parent, World world, Vector3i point1, Vector3i point2, ClaimType claimType, UUID ownerUniqueId, boolean cuboid, Cause cause) {
@@ -456,29 +546,12 @@ public ClaimResult deleteClaim(Claim claim, Cause cause, boolean deleteChildren)
 
     // deletes all claims owned by a player
     public void deleteClaimsForPlayer(UUID playerID) {
-        if (DataStore.USE_GLOBAL_PLAYER_STORAGE && playerID != null) {
-            List<Claim> claimsToDelete = new ArrayList<>(DataStore.GLOBAL_PLAYER_DATA.get(playerID).getInternalClaims());
-            for (Claim claim : claimsToDelete) {
-                ((GPClaim) claim).removeSurfaceFluids(null);
-                GriefPreventionPlugin.GLOBAL_SUBJECT.getSubjectData().clearPermissions(ImmutableSet.of(claim.getContext()));
-                GPClaimManager claimWorldManager = this.claimWorldManagers.get(claim.getWorld().getProperties().getUniqueId());
-                claimWorldManager.deleteClaim(claim, true);
-
-                // if in a creative mode world, delete the claim
-                if (GriefPreventionPlugin.instance.claimModeIsActive(claim.getLesserBoundaryCorner().getExtent().getProperties(), ClaimsMode.Creative)) {
-                    GriefPreventionPlugin.instance.restoreClaim((GPClaim) claim, 0);
-                }
-            }
-            return;
-        }
-
         for (GPClaimManager claimWorldManager : this.claimWorldManagers.values()) {
-            List<Claim> claims = claimWorldManager.getInternalPlayerClaims(playerID);
+            List<Claim> claims;
             if (playerID == null) {
                 claims = claimWorldManager.getWorldClaims();
-            }
-            if (claims == null) {
-                continue;
+            } else {
+                claims = claimWorldManager.getOwnerClaims(playerID);
             }
 
             List<Claim> claimsToDelete = new ArrayList<Claim>();
@@ -551,13 +624,9 @@ public List<Claim> getNearbyClaims(Location<World> location) {
                 for (int chunkZ = lesserChunk.get().getPosition().getZ(); chunkZ <= greaterChunk.get().getPosition().getZ(); chunkZ++) {
                     Optional<Chunk> chunk = location.getExtent().getChunk(chunkX, 0, chunkZ);
                     if (chunk.isPresent()) {
-                        Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(ChunkPos.chunkXZ2Int(chunkX, chunkZ));
-                        if (claimsInChunk != null) {
-                            for (Claim claim : claimsInChunk) {
-                                final GPClaim gpClaim = (GPClaim) claim;
-                                if (gpClaim.parent == null && !claims.contains(claim)) {
-                                    claims.add(claim);
-                                }
+                        for (GPClaim gpClaim : claimWorldManager.getClaimIndex().getClaimsInChunk(ChunkPos.chunkXZ2Int(chunkX, chunkZ))) {
+                            if (gpClaim.parent == null && !claims.contains(gpClaim)) {
+                                claims.add(gpClaim);
                             }
                         }
                     }
@@ -591,15 +660,35 @@ public GPClaim getClaimAt(Location<World> location, boolean ignoreHeight, GPClai
         return (GPClaim) claimManager.getClaimAt(location, ignoreHeight, cachedClaim);
     }
 
+    public ClaimCursor getClaimCursor(Location<World> location, boolean ignoreHeight, @Nullable ClaimCursor cursor) {
+        GPClaimManager claimManager = this.getClaimWorldManager(location.getExtent().getProperties());
+        return claimManager.getClaimCursor(location, ignoreHeight, cursor);
+    }
+
+    public int getFreeRadius(Location<World> location, int maxRadius) {
+        GPClaimManager claimManager = this.getClaimWorldManager(location.getExtent().getProperties());
+        return claimManager.getFreeRadius(location, maxRadius);
+    }
+
+    @Nullable
+    public ClaimCursor getAreaCursor(Location<World> location, int radius, boolean ignoreHeight, @Nullable ClaimCursor cursor) {
+        GPClaimManager claimManager = this.getClaimWorldManager(location.getExtent().getProperties());
+        return claimManager.getAreaCursor(location, radius, ignoreHeight, cursor);
+    }
+
+    @Nullable
+    public ClaimCursor getRegionCursor(World world, int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean ignoreHeight) {
+        GPClaimManager claimManager = this.getClaimWorldManager(world.getProperties());
+        return claimManager.getRegionCursor(minX, minY, minZ, maxX, maxY, maxZ, ignoreHeight);
+    }
+
     public GPPlayerData getPlayerData(World world, UUID playerUniqueId) {
         return this.getPlayerData(world.getProperties(), playerUniqueId);
     }
 
     public GPPlayerData getPlayerData(WorldProperties worldProperties, UUID playerUniqueId) {
-        GPPlayerData playerData = null;
         GPClaimManager claimWorldManager = this.getClaimWorldManager(worldProperties);
-        playerData = claimWorldManager.getPlayerDataMap().get(playerUniqueId);
-        return playerData;
+        return claimWorldManager.getPlayerData(playerUniqueId);
     }
 
     // retrieves player data from memory or secondary storage, as necessary
@@ -27,21 +27,23 @@
 
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import me.ryanhamshire.griefprevention.api.claim.Claim;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
+import me.ryanhamshire.griefprevention.configuration.ClaimSnapshot;
 import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
 import me.ryanhamshire.griefprevention.configuration.ClaimTemplateStorage;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig.Type;
-import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.configuration.TownStorageData;
 import me.ryanhamshire.griefprevention.configuration.type.DimensionConfig;
 import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
 import me.ryanhamshire.griefprevention.migrator.PolisMigrator;
 import me.ryanhamshire.griefprevention.migrator.RedProtectMigrator;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
 import org.apache.commons.io.FileUtils;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.scheduler.Task;
@@ -63,8 +65,17 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
 
 //manages data stored in the file system
 public class FlatFileDataStore extends DataStore {
@@ -78,6 +89,7 @@ public class FlatFileDataStore extends DataStore {
     public final static Path polisDataPath = GriefPreventionPlugin.instance.getConfigPath().getParent().resolve("polis").resolve("data");
     public final static Path redProtectDataPath = GriefPreventionPlugin.instance.getConfigPath().getParent().resolve("RedProtect").resolve("data");
     public final static Map<UUID, Task> cleanupClaimTasks = Maps.newHashMap();
+    private final static int MAX_CLAIM_LOADER_THREADS = 8;
     private final Path rootConfigPath = GriefPreventionPlugin.instance.getConfigPath().resolve("worlds");
     public static Path rootWorldSavePath;
 
@@ -209,12 +221,9 @@ public void loadWorldData(World world) {
 
         // Load Claim Data
         try {
-            File[] files = newWorldDataPath.resolve("ClaimData").toFile().listFiles();
-            if (files != null && files.length > 0) {
-                this.loadClaimData(files, worldProperties);
-                GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] " + files.length + " total claims loaded.");
-            }
+            this.loadWorldClaims(newWorldDataPath.resolve("ClaimData"), worldProperties);
 
+            File[] files;
             if (GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.useGlobalPlayerDataStorage) {
                 files = globalPlayerDataPath.toFile().listFiles();
             } else {
@@ -234,25 +243,7 @@ public void loadWorldData(World world) {
 
         // handle default flag permissions
         this.setupDefaultPermissions(world);
-        // migrate playerdata to new claim block system
-        final int migrationRate = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.migrationRate;
-        if (migrationRate <= -1) {
-            return;
-        }
-
-        for (GPPlayerData playerData : claimWorldManager.getPlayerDataMap().values()) {
-            final PlayerStorageData playerStorage = playerData.getStorageData();
-            if (!playerStorage.getConfig().hasMigratedBlocks()) {
-                final int accruedBlocks = playerStorage.getConfig().getAccruedClaimBlocks();
-                int newAccruedBlocks = accruedBlocks * migrationRate;
-                if (newAccruedBlocks > playerData.optionMaxAccruedBlocks) {
-                    newAccruedBlocks = playerData.optionMaxAccruedBlocks;
-                }
-                playerStorage.getConfig().setAccruedClaimBlocks(accruedBlocks * migrationRate);
-                playerStorage.getConfig().setMigratedBlocks(true);
-                playerStorage.save();
-            }
-        }
+        // player data is migrated to the new claim block system when it is loaded
     }
 
     public void unloadWorldData(WorldProperties worldProperties) {
@@ -267,61 +258,158 @@ public void unloadWorldData(WorldProperties worldProperties) {
            cleanupClaimTasks.remove(worldProperties.getUniqueId());
         }
 
+        this.writeClaimSnapshot(claimWorldManager);
         claimWorldManager.unload();
+        this.flushClaimWrites();
         this.claimWorldManagers.remove(worldProperties.getUniqueId());
         DataStore.dimensionConfigMap.remove(worldProperties.getUniqueId());
         DataStore.worldConfigMap.remove(worldProperties.getUniqueId());
     }
 
+    void loadWorldClaims(Path claimDataPath, WorldProperties worldProperties) throws Exception {
+        final File[] files = claimDataPath.toFile().listFiles();
+        if (files != null && files.length > 0) {
+            this.loadClaimData(files, worldProperties);
+        }
+    }
+
+    // Claims are loaded in two phases. Claim files are parsed on a pool of loader threads,
+    // then claims are created and linked on the server thread with towns first, then top
+    // level claims and subdivisions last so every parent exists before its children.
     void loadClaimData(File[] files, WorldProperties worldProperties) throws Exception {
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
-            if (file.isFile()) {
-                this.loadClaimFile(file, worldProperties);
+        final List<ClaimFile> claimFiles = new ArrayList<>();
+        this.collectClaimFiles(files, claimFiles);
+        if (claimFiles.isEmpty()) {
+            return;
+        }
+
+        final Path claimDataPath = this.getWorldDataPath(worldProperties).resolve("ClaimData");
+        final Map<UUID, ClaimSnapshot.Entry> snapshot;
+        if (GriefPreventionPlugin.getGlobalConfig().getConfig().storage.claimSnapshot) {
+            snapshot = ClaimSnapshot.read(this.getWorldDataPath(worldProperties).resolve(ClaimSnapshot.FILE_NAME));
+        } else {
+            snapshot = Collections.emptyMap();
+        }
+
+        // phase 1 - parse, or restore from the snapshot if the claim file is unchanged
+        final long start = System.currentTimeMillis();
+        final int threads = this.parseClaims(claimFiles, claimFile -> {
+            final ClaimSnapshot.Entry entry = snapshot.get(claimFile.claimId);
+            final CommentedConfigurationNode root = entry == null ? null : entry.getRootIfCurrent(claimDataPath, claimFile.file.toPath());
+            claimFile.fromSnapshot = root != null;
+            return this.createClaimStorage(claimFile.file, worldProperties, root);
+        });
+        int restored = 0;
+        for (ClaimFile claimFile : claimFiles) {
+            if (claimFile.fromSnapshot) {
+                restored++;
             }
         }
-        for (int i = 0; i < files.length; i++) {
-            File file = files[i];
-            if (file.isDirectory()) {
-                this.loadClaimData(file.listFiles(), worldProperties);
+        GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] Parsed " + (claimFiles.size() - restored) + " claim files and restored "
+                + restored + " claims from snapshot in " + (System.currentTimeMillis() - start) + " ms using " + threads + " threads.");
+
+        // phase 2 - link
+        this.linkClaims(claimFiles, worldProperties);
+    }
+
+    // Runs the parser for each claim on a pool of loader threads and returns the number of threads used
+    int parseClaims(List<ClaimFile> claimFiles, ClaimParser parser) throws InterruptedException {
+        final int threads = Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_CLAIM_LOADER_THREADS), claimFiles.size()));
+        final ExecutorService loader = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("GriefPrevention Claim Loader #%d").setDaemon(true).build());
+        try {
+            final List<Future<?>> futures = new ArrayList<>(claimFiles.size());
+            for (ClaimFile claimFile : claimFiles) {
+                futures.add(loader.submit(() -> {
+                    claimFile.storage = parser.parse(claimFile);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    claimFiles.get(i).error = e.getCause();
+                }
             }
+        } finally {
+            loader.shutdown();
         }
+        return threads;
     }
 
-    void loadClaimFile(File file, WorldProperties worldProperties) {
-        if (file.isFile()) // avoids folders
-        {
-            // the filename is the claim ID. try to parse it
-            UUID claimId;
+    // Creates and adds the parsed claims on the server thread, parents before children
+    void linkClaims(List<ClaimFile> claimFiles, WorldProperties worldProperties) {
+        final long start = System.currentTimeMillis();
+        Collections.sort(claimFiles, (c1, c2) -> Integer.compare(c1.getLoadOrder(), c2.getLoadOrder()));
+        int towns = 0;
+        int claims = 0;
+        int subdivisions = 0;
+        int failed = 0;
+        for (ClaimFile claimFile : claimFiles) {
+            final GPClaim claim = this.loadClaimFile(claimFile, worldProperties);
+            if (claim == null) {
+                failed++;
+            } else if (claim.isTown()) {
+                towns++;
+            } else if (claim.isSubdivision()) {
+                subdivisions++;
+            } else {
+                claims++;
+            }
+        }
+        GriefPreventionPlugin.instance.getLogger().info("[" + worldProperties.getWorldName() + "] Linked " + towns + " towns, " + claims + " claims and "
+                + subdivisions + " subdivisions in " + (System.currentTimeMillis() - start) + " ms." + (failed > 0 ? " " + failed + " claim files failed to load." : ""));
+    }
 
-            try {
+    void collectClaimFiles(File[] files, List<ClaimFile> claimFiles) {
+        for (int i = 0; i < files.length; i++) {
+            File file = files[i];
+            if (file.isFile()) {
+                // the filename is the claim ID. try to parse it
                 final String fileName = file.getName();
                 // UUID's should always be 36 in length
                 if (fileName.length() != 36) {
-                    return;
+                    continue;
                 }
 
-                claimId = UUID.fromString(fileName);
-            } catch (Exception e) {
-                GriefPreventionPlugin.instance.getLogger().error("Could not read claim file " + file.getAbsolutePath());
-                return;
+                try {
+                    claimFiles.add(new ClaimFile(file, UUID.fromString(fileName)));
+                } catch (Exception e) {
+                    GriefPreventionPlugin.instance.getLogger().error("Could not read claim file " + file.getAbsolutePath());
+                }
+            }
+        }
+        for (int i = 0; i < files.length; i++) {
+            File file = files[i];
+            if (file.isDirectory()) {
+                this.collectClaimFiles(file.listFiles(), claimFiles);
             }
+        }
+    }
 
-            try {
-               this.loadClaim(file, worldProperties, claimId);
+    @Nullable
+    private GPClaim loadClaimFile(ClaimFile claimFile, WorldProperties worldProperties) {
+        final File file = claimFile.file;
+        try {
+            if (claimFile.error != null) {
+                throw claimFile.error;
             }
+            return this.loadClaim(file, claimFile.storage, worldProperties, claimFile.claimId);
+        }
 
-            // if there's any problem with the file's content, log an error message and skip it
-            catch (Exception e) {
-                if (e.getMessage() != null && e.getMessage().contains("World not found")) {
-                    file.delete();
-                } else {
-                    StringWriter errors = new StringWriter();
-                    e.printStackTrace(new PrintWriter(errors));
-                    GriefPreventionPlugin.addLogEntry(file.getName() + " " + errors.toString(), CustomLogEntryTypes.Exception);
-                }
+        // if there's any problem with the file's content, log an error message and skip it
+        catch (Throwable e) {
+            if (e.getMessage() != null && e.getMessage().contains("World not found")) {
+                file.delete();
+            } else {
+                StringWriter errors = new StringWriter();
+                e.printStackTrace(new PrintWriter(errors));
+                GriefPreventionPlugin.addLogEntry(file.getName() + " " + errors.toString(), CustomLogEntryTypes.Exception);
             }
         }
+
+        return null;
     }
 
     void loadPlayerData(WorldProperties worldProperties, File[] files) throws Exception {
@@ -362,16 +450,28 @@ void loadPlayerData(WorldProperties worldProperties, File[] files) throws Except
 
     public GPClaim loadClaim(File claimFile, WorldProperties worldProperties, UUID claimId)
             throws Exception {
-        GPClaim claim;
+        return this.loadClaim(claimFile, this.createClaimStorage(claimFile, worldProperties, null), worldProperties, claimId);
+    }
 
+    // Safe to call from loader threads, only reads the claim file unless a root is given
+    ClaimStorageData createClaimStorage(File claimFile, WorldProperties worldProperties, @Nullable CommentedConfigurationNode root) {
         boolean isTown = claimFile.toPath().getParent().endsWith("town");
         //boolean isTownChild = claimFile.toPath().getParent().getParent().endsWith("town");
-        ClaimStorageData claimStorage = null;
+        if (root != null) {
+            if (isTown) {
+                return new TownStorageData(claimFile.toPath(), worldProperties.getUniqueId(), root);
+            }
+            return new ClaimStorageData(claimFile.toPath(), worldProperties.getUniqueId(), root);
+        }
         if (isTown) {
-            claimStorage = new TownStorageData(claimFile.toPath(), worldProperties.getUniqueId());
-        } else {
-            claimStorage = new ClaimStorageData(claimFile.toPath(), worldProperties.getUniqueId());
+            return new TownStorageData(claimFile.toPath(), worldProperties.getUniqueId());
         }
+        return new ClaimStorageData(claimFile.toPath(), worldProperties.getUniqueId());
+    }
+
+    private GPClaim loadClaim(File claimFile, ClaimStorageData claimStorage, WorldProperties worldProperties, UUID claimId)
+            throws Exception {
+        GPClaim claim;
 
         final ClaimType type = claimStorage.getConfig().getType();
         final UUID parent = claimStorage.getConfig().getParent().orElse(null);
@@ -477,15 +577,36 @@ public void writeClaimToStorage(GPClaim claim) {
         }
     }
 
+    @Override
+    public void writeClaimSnapshot(GPClaimManager claimManager) {
+        if (!GriefPreventionPlugin.getGlobalConfig().getConfig().storage.claimSnapshot) {
+            return;
+        }
+
+        ClaimStorageData.WRITER.trackWrites();
+        final Map<Path, CommentedConfigurationNode> claims = Maps.newHashMap();
+        for (Claim claim : claimManager.getAllClaims()) {
+            final ClaimStorageData claimStorage = ((GPClaim) claim).getClaimStorage();
+            if (claimStorage != null && claimStorage.getRoot() != null) {
+                claims.put(claimStorage.filePath, claimStorage.getRoot());
+            }
+        }
+
+        final Path worldDataPath = this.getWorldDataPath(claimManager.getWorldProperties());
+        ClaimStorageData.WRITER.writeSnapshot(worldDataPath.resolve(ClaimSnapshot.FILE_NAME), worldDataPath.resolve("ClaimData"), claims);
+    }
+
+    private Path getWorldDataPath(WorldProperties worldProperties) {
+        final DimensionType dimType = worldProperties.getDimensionType();
+        return this.rootConfigPath.resolve(((IMixinDimensionType) dimType).getModId()).resolve(((IMixinDimensionType) dimType).getEnumName())
+                .resolve(worldProperties.getWorldName());
+    }
+
     // deletes a claim from the file system
     @Override
     public void deleteClaimFromSecondaryStorage(GPClaim claim) {
-        try {
-            Files.delete(claim.getClaimStorage().filePath);
-        } catch (IOException e) {
-            e.printStackTrace();
-            GriefPreventionPlugin.addLogEntry("Error: Unable to delete claim file \"" + claim.getClaimStorage().filePath + "\".");
-        }
+        // queued behind any pending write of the same file so it can't be recreated
+        ClaimStorageData.WRITER.delete(claim.getClaimStorage().filePath);
     }
 
     @Override
@@ -556,4 +677,36 @@ GPPlayerData getPlayerDataFromStorage(UUID playerID) {
     void overrideSavePlayerData(UUID playerID, GPPlayerData playerData) {
     }
 
+
+    interface ClaimParser {
+
+        ClaimStorageData parse(ClaimFile claimFile) throws Exception;
+    }
+
+    static class ClaimFile {
+
+        final File file;
+        final UUID claimId;
+        ClaimStorageData storage;
+        boolean fromSnapshot;
+        Throwable error;
+
+        ClaimFile(File file, UUID claimId) {
+            this.file = file;
+            this.claimId = claimId;
+        }
+
+        // towns, then top level claims, then subdivisions
+        private int getLoadOrder() {
+            if (this.storage == null || this.storage.getConfig() == null) {
+                return 1;
+            }
+
+            final ClaimType type = this.storage.getConfig().getType();
+            if (type == ClaimType.TOWN) {
+                return 0;
+            }
+            return type == ClaimType.SUBDIVISION ? 2 : 1;
+        }
+    }
 }
@@ -24,45 +24,76 @@
  */
 package me.ryanhamshire.griefprevention;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import me.ryanhamshire.griefprevention.claim.GPClaim;
+import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import org.eclipse.egit.github.core.Gist;
 import org.eclipse.egit.github.core.GistFile;
 import org.eclipse.egit.github.core.service.GistService;
+import org.spongepowered.api.Sponge;
 import org.spongepowered.api.command.CommandSource;
 import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.api.event.Event;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.action.TextActions;
 import org.spongepowered.api.text.format.TextColors;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+// Records are staged in a small ring on the server thread, then written in batches as
+// tab separated lines to a temp file by the debug writer thread so a session has no
+// line cap. Reports are built from that file on the same thread.
 public class GPDebugData {
 
-    private static final int MAX_LINES = 5000;
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
+    private static final int BATCH_SIZE = 500;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss z").withZone(ZoneId.systemDefault());
+    private static final DateTimeFormatter FILE_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.systemDefault());
     private static final String TINY_URL_API_CREATE = "http://tinyurl.com/api-create.php?url=";
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("GriefPrevention Debug Writer").setDaemon(true).build());
 
     private final CommandSource source;
     private final List<String> header;
-    private final List<String> records;
+    // pending records, kept raw until the batch is written
+    private final UUID[] claims = new UUID[BATCH_SIZE];
+    private final Class<?>[] events = new Class<?>[BATCH_SIZE];
+    private final Object[] sources = new Object[BATCH_SIZE];
+    private final Object[] targets = new Object[BATCH_SIZE];
+    private final Location<?>[] locations = new Location<?>[BATCH_SIZE];
+    private final User[] users = new User[BATCH_SIZE];
+    private int pendingRecords;
+    private long recordCount;
     private final long startTime = System.currentTimeMillis();
     private boolean verbose;
     private User target;
+    // only used on the writer thread
+    private Path recordFile;
+    private BufferedWriter recordWriter;
 
     public GPDebugData(CommandSource source, User target, boolean verbose) {
         this.source = source;
         this.target = target;
         this.verbose = verbose;
-        this.records = new ArrayList<>();
         this.header = new ArrayList<>();
         this.header.add("#### This file was automatically generated by [GriefPrevention](https://github.com/MinecraftPortCentral/GriefPrevention) ");
         this.header.add("");
@@ -72,20 +103,65 @@ public GPDebugData(CommandSource source, User target, boolean verbose) {
         this.header.add("| GP Version | " + GriefPreventionPlugin.IMPLEMENTATION_VERSION + "|");
         this.header.add("| Sponge Version | " + GriefPreventionPlugin.SPONGE_VERSION + "|");
         this.header.add("| User | " + (this.target == null ? "ALL" : this.target.getName()) + "|");
-        this.header.add("| Record start | " + DATE_FORMAT.format(new Date(this.startTime)) + "|");
+        this.header.add("| Record start | " + DATE_FORMAT.format(Instant.ofEpochMilli(this.startTime)) + "|");
     }
 
-    public void addRecord(String claim, String event, String source, String target, String location, String user) {
-        if (this.records.size() < MAX_LINES) {
-            this.records.add("| " + claim + " | " + event + " | " + source + " | " + target + " | " + location + " | " + user + " | ");
-        } else {
-            this.source.sendMessage(Text.of("MAX DEBUG LIMIT REACHED!", "\n",
-                    TextColors.GREEN, "Pasting output..."));
-            this.pasteRecords();
-            this.records.clear();
+    public synchronized void addRecord(GPClaim claim, Event event, Object target, Location<World> location, User user) {
+        final int index = this.pendingRecords;
+        this.claims[index] = claim == null ? null : claim.getUniqueId();
+        this.events[index] = event.getClass();
+        this.sources[index] = event.getCause().root();
+        this.targets[index] = target;
+        this.locations[index] = location;
+        this.users[index] = user;
+        this.pendingRecords++;
+        this.recordCount++;
+        if (this.pendingRecords == BATCH_SIZE) {
+            this.flushRecords();
         }
     }
 
+    // Formats the pending records and hands them to the writer thread. Identifiers are
+    // resolved here since they read live entity and block state.
+    private void flushRecords() {
+        if (this.pendingRecords == 0) {
+            return;
+        }
+
+        final StringBuilder batch = new StringBuilder(this.pendingRecords * 128);
+        for (int i = 0; i < this.pendingRecords; i++) {
+            final UUID claim = this.claims[i];
+            final String targetIdentifier = GPPermissionHandler.getPermissionIdentifier(this.targets[i]);
+            final Location<?> location = this.locations[i];
+            final User user = this.users[i];
+            batch.append(claim == null ? "none" : claim.toString()).append('\t')
+                    .append(this.events[i].getSimpleName().replace('$', '.').replace(".Impl", "")).append('\t')
+                    .append(GPPermissionHandler.getPermissionIdentifier(this.sources[i])).append('\t')
+                    .append(targetIdentifier.isEmpty() ? "none" : targetIdentifier).append('\t')
+                    .append(location == null ? "none" : location.getBlockPosition().toString()).append('\t')
+                    .append(user == null ? "none" : user.getName()).append('\n');
+            this.sources[i] = null;
+            this.targets[i] = null;
+            this.locations[i] = null;
+            this.users[i] = null;
+        }
+        this.pendingRecords = 0;
+
+        final String lines = batch.toString();
+        WRITER.execute(() -> {
+            try {
+                if (this.recordWriter == null) {
+                    this.recordFile = Files.createTempFile("gp-debug-", ".tsv");
+                    this.recordFile.toFile().deleteOnExit();
+                    this.recordWriter = Files.newBufferedWriter(this.recordFile, StandardCharsets.UTF_8);
+                }
+                this.recordWriter.write(lines);
+            } catch (IOException e) {
+                GriefPreventionPlugin.instance.getLogger().error("Could not write debug records", e);
+            }
+        });
+    }
+
     public CommandSource getSource() {
         return this.source;
     }
@@ -106,38 +182,90 @@ public void setVerbose(boolean verbose) {
         this.verbose = verbose;
     }
 
+    public long getRecordCount() {
+        return this.recordCount;
+    }
+
     public void pasteRecords() {
-        if (this.records.isEmpty()) {
+        this.buildReport(null);
+    }
+
+    // Writes the report to the given directory instead of uploading it
+    public void saveRecords(Path directory) {
+        this.buildReport(directory);
+    }
+
+    private synchronized void buildReport(Path directory) {
+        if (this.recordCount == 0) {
             this.source.sendMessage(Text.of(TextColors.RED, "No debug records to paste!"));
             return;
         }
 
+        this.flushRecords();
         final long endTime = System.currentTimeMillis();
-        List<String> debugOutput = new ArrayList<>(this.header);
-        debugOutput.add("| Record end | " + DATE_FORMAT.format(new Date(endTime)) + "|");
-        long elapsed = (endTime - startTime) / 1000L; 
-        debugOutput.add("| Time elapsed | " + elapsed + " seconds" + "|");
-        debugOutput.add("");
-        debugOutput.add("### Output") ;
-        debugOutput.add("| Claim | Event | Source | Target | Location | User |");
-        debugOutput.add("|-------|-------|--------|--------|----------|------|");
+        final long recordCount = this.recordCount;
+        this.source.sendMessage(Text.of(TextColors.GREEN, "Building debug report from " + recordCount + " records..."));
+        WRITER.execute(() -> {
+            if (this.recordWriter == null) {
+                this.sendMessage(Text.of(TextColors.RED, "No debug records were written!"));
+                return;
+            }
+            try {
+                this.recordWriter.flush();
+                if (directory == null) {
+                    final StringBuilder content = new StringBuilder();
+                    this.writeReport(content, endTime);
+                    // the upload waits on the network so it runs as an async task, the writer only does file I/O
+                    final String report = content.toString();
+                    Sponge.getScheduler().createTaskBuilder().async().execute(() -> this.uploadReport(report)).submit(GriefPreventionPlugin.instance);
+                } else {
+                    Files.createDirectories(directory);
+                    final Path reportFile = directory.resolve("gp-" + FILE_DATE_FORMAT.format(Instant.ofEpochMilli(endTime)) + ".md");
+                    try (BufferedWriter writer = Files.newBufferedWriter(reportFile, StandardCharsets.UTF_8)) {
+                        this.writeReport(writer, endTime);
+                    }
+                    this.sendMessage(Text.of(TextColors.GREEN, "Debug report saved to ", TextColors.WHITE, reportFile.toString()));
+                }
+            } catch (IOException e) {
+                this.sendMessage(Text.of(TextColors.RED, "Error building debug report : ", TextColors.WHITE, e.getMessage()));
+            }
+        });
+    }
 
-        debugOutput.addAll(this.records);
+    private void writeReport(Appendable output, long endTime) throws IOException {
+        for (String line : this.header) {
+            output.append(line).append('\n');
+        }
+        output.append("| Record end | ").append(DATE_FORMAT.format(Instant.ofEpochMilli(endTime))).append("|\n");
+        long elapsed = (endTime - this.startTime) / 1000L;
+        output.append("| Time elapsed | ").append(String.valueOf(elapsed)).append(" seconds|\n");
+        output.append('\n');
+        output.append("### Output\n");
+        output.append("| Claim | Event | Source | Target | Location | User |\n");
+        output.append("|-------|-------|--------|--------|----------|------|\n");
 
+        try (BufferedReader reader = Files.newBufferedReader(this.recordFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append("| ").append(line.replace("\t", " | ")).append(" | \n");
+            }
+        }
+    }
+
+    private void uploadReport(String content) {
         GistService gistService = new GistService();
         Gist gist = new Gist();
         gist.setPublic(false);
         gist.setDescription("GriefPrevention Debug Log");
         GistFile file = new GistFile();
-        file.setContent(String.join("\n", debugOutput));
-        String dateFormat = new SimpleDateFormat("yyyyMMddHHmm").format(new Date());
-        file.setFilename("gp-" + dateFormat.replace(".", "-") + ".md");
+        file.setContent(content);
+        file.setFilename("gp-" + FILE_DATE_FORMAT.format(Instant.now()) + ".md");
         gist.setFiles(Collections.singletonMap(file.getFilename(), file));
 
         try {
             gist = gistService.createGist(gist);
         } catch (IOException e) {
-            this.source.sendMessage(Text.of(TextColors.RED, "Error uploading content to Gist : ", TextColors.WHITE, e.getMessage()));
+            this.sendMessage(Text.of(TextColors.RED, "Error uploading content to Gist : ", TextColors.WHITE, e.getMessage()));
             return;
         }
 
@@ -145,14 +273,34 @@ public void pasteRecords() {
         try {
             url = new URL(gist.getHtmlUrl());
         } catch (MalformedURLException e) {
-            this.source.sendMessage(Text.of(TextColors.RED, "Error uploading content to Gist : ", TextColors.WHITE, e.getMessage()));
+            this.sendMessage(Text.of(TextColors.RED, "Error uploading content to Gist : ", TextColors.WHITE, e.getMessage()));
             return;
         }
 
-        this.source.sendMessage(Text.builder().append(Text.of(TextColors.GREEN, "Paste success! : " + shortenUrl(gist.getHtmlUrl())))
+        this.sendMessage(Text.builder().append(Text.of(TextColors.GREEN, "Paste success! : " + shortenUrl(gist.getHtmlUrl())))
                 .onClick(TextActions.openUrl(url)).build());
     }
 
+    // Deletes the record file once every queued write and report is done
+    public void close() {
+        WRITER.execute(() -> {
+            try {
+                if (this.recordWriter != null) {
+                    this.recordWriter.close();
+                    Files.deleteIfExists(this.recordFile);
+                    this.recordWriter = null;
+                }
+            } catch (IOException e) {
+                GriefPreventionPlugin.instance.getLogger().error("Could not delete debug record file", e);
+            }
+        });
+    }
+
+    // messages from the writer thread are sent on the server thread
+    private void sendMessage(Text message) {
+        Sponge.getScheduler().createTaskBuilder().execute(() -> this.source.sendMessage(message)).submit(GriefPreventionPlugin.instance);
+    }
+
     private String shortenUrl(String gistUrl) {
         String tinyUrl;
         try {
@@ -27,13 +27,17 @@
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import me.ryanhamshire.griefprevention.api.claim.Claim;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.data.PlayerData;
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.command.CommandHelper;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
+import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
 import me.ryanhamshire.griefprevention.permission.GPOptionHandler;
 import me.ryanhamshire.griefprevention.permission.GPOptions;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
@@ -71,6 +75,9 @@ public class GPPlayerData implements PlayerData {
 
     // the player's claims
     private List<Claim> claimList;
+    // Claim UUID -> claim blocks used by the claim, the sum is kept in usedClaimBlocks
+    private final Object2IntMap<UUID> claimBlockCosts = new Object2IntOpenHashMap<>();
+    private int usedClaimBlocks = 0;
 
     private PlayerStorageData playerStorage;
 
@@ -142,6 +149,8 @@ public class GPPlayerData implements PlayerData {
     public boolean debugClaimPermissions = false;
     // the last claim this player was in, that we know of
     public WeakReference<GPClaim> lastClaim = new WeakReference<>(null);
+    // region around the player's last claim lookup where the result is known
+    public ClaimCursor claimCursor = null;
 
     // pvp
     public long lastPvpTimestamp = 0;
@@ -250,6 +259,11 @@ public GPPlayerData(WorldProperties worldProperties, UUID playerUniqueId, Player
         this.playerID = playerUniqueId;
         this.playerStorage = playerStorage;
         this.claimList = claims;
+        for (Claim claim : claims) {
+            final int cost = getClaimBlockCost(claim);
+            this.claimBlockCosts.put(claim.getUniqueId(), cost);
+            this.usedClaimBlocks += cost;
+        }
         this.refreshPlayerOptions();
     }
 
@@ -415,19 +429,65 @@ public int getInitialClaimBlocks() {
     // the number of claim blocks a player has available for claiming land
     @Override
     public int getRemainingClaimBlocks() {
-        int remainingBlocks = this.optionInitialClaimBlocks + this.getAccruedClaimBlocks() + this.getBonusClaimBlocks();
-        for (Claim claim : this.claimList) {
-            if (claim.isSubdivision()) {
-                continue;
-            }
+        if (GriefPreventionPlugin.debugLogging) {
+            this.checkUsedClaimBlocks();
+        }
+        return this.optionInitialClaimBlocks + this.getAccruedClaimBlocks() + this.getBonusClaimBlocks() - this.usedClaimBlocks;
+    }
 
-            GPClaim gpClaim = (GPClaim) claim;
-            if ((gpClaim.parent == null || gpClaim.parent.isAdminClaim()) && claim.getData().requiresClaimBlocks()) {
-                remainingBlocks -= claim.getArea();
-            }
+    public int getUsedClaimBlocks() {
+        return this.usedClaimBlocks;
+    }
+
+    private static int getClaimBlockCost(Claim claim) {
+        if (claim.isSubdivision()) {
+            return 0;
+        }
+
+        GPClaim gpClaim = (GPClaim) claim;
+        if ((gpClaim.parent == null || gpClaim.parent.isAdminClaim()) && claim.getData().requiresClaimBlocks()) {
+            return claim.getArea();
         }
+        return 0;
+    }
 
-        return remainingBlocks;
+    public void addClaim(Claim claim) {
+        if (!this.claimList.contains(claim)) {
+            this.claimList.add(claim);
+        }
+        final int cost = getClaimBlockCost(claim);
+        this.usedClaimBlocks += cost - this.claimBlockCosts.put(claim.getUniqueId(), cost);
+    }
+
+    public void removeClaim(Claim claim) {
+        this.claimList.remove(claim);
+        this.usedClaimBlocks -= this.claimBlockCosts.removeInt(claim.getUniqueId());
+    }
+
+    // Must be called after the area, type, parent or claim block requirement of one of the player's claims changed
+    public void updateClaimBlocks(Claim claim) {
+        if (!this.claimBlockCosts.containsKey(claim.getUniqueId())) {
+            return;
+        }
+        final int cost = getClaimBlockCost(claim);
+        this.usedClaimBlocks += cost - this.claimBlockCosts.put(claim.getUniqueId(), cost);
+    }
+
+    // Compares the used claim blocks against a full recount, run while debug logging is enabled
+    private void checkUsedClaimBlocks() {
+        int usedClaimBlocks = 0;
+        for (Claim claim : this.claimList) {
+            usedClaimBlocks += getClaimBlockCost(claim);
+        }
+        if (usedClaimBlocks != this.usedClaimBlocks) {
+            GriefPreventionPlugin.addLogEntry("Used claim blocks of " + this.playerID + " were " + this.usedClaimBlocks + " but claims use "
+                    + usedClaimBlocks + ", correcting.", CustomLogEntryTypes.Debug, true);
+            this.claimBlockCosts.clear();
+            for (Claim claim : this.claimList) {
+                this.claimBlockCosts.put(claim.getUniqueId(), getClaimBlockCost(claim));
+            }
+            this.usedClaimBlocks = usedClaimBlocks;
+        }
     }
 
     public double getRemainingChunks() {
@@ -114,6 +114,7 @@
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig.Type;
 import me.ryanhamshire.griefprevention.configuration.MessageDataConfig;
 import me.ryanhamshire.griefprevention.configuration.MessageStorage;
+import me.ryanhamshire.griefprevention.configuration.category.DatabaseCategory;
 import me.ryanhamshire.griefprevention.configuration.type.DimensionConfig;
 import me.ryanhamshire.griefprevention.configuration.type.GlobalConfig;
 import me.ryanhamshire.griefprevention.configuration.type.WorldConfig;
@@ -139,6 +140,7 @@
 import me.ryanhamshire.griefprevention.task.SendPlayerMessageTask;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
 import me.ryanhamshire.griefprevention.util.PlayerUtils;
+import me.ryanhamshire.griefprevention.util.UserCache;
 import net.minecraft.entity.EnumCreatureType;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.entity.player.InventoryPlayer;
@@ -172,6 +174,7 @@
 import org.spongepowered.api.event.entity.TargetEntityEvent;
 import org.spongepowered.api.event.game.state.GameAboutToStartServerEvent;
 import org.spongepowered.api.event.game.state.GamePreInitializationEvent;
+import org.spongepowered.api.event.game.state.GameStoppedServerEvent;
 import org.spongepowered.api.event.service.ChangeServiceProviderEvent;
 import org.spongepowered.api.item.ItemType;
 import org.spongepowered.api.item.ItemTypes;
@@ -213,6 +216,8 @@
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.annotation.Nullable;
+
 @Plugin(id = "griefprevention", name = "GriefPrevention", version = "4.0.0", description = "This plugin is designed to prevent all forms of grief.")
 public class GriefPreventionPlugin {
 
@@ -252,6 +257,8 @@ public class GriefPreventionPlugin {
 
     // this handles data storage, like player and region data
     public DataStore dataStore;
+    // tracked creator and notifier lookups
+    public final UserCache userCache = new UserCache();
 
     public MCClansApiProvider clanApiProvider;
     public NucleusApiProvider nucleusApiProvider;
@@ -272,6 +279,8 @@ public class GriefPreventionPlugin {
     // log entry manager for GP's custom log files
     CustomLogger customLogger;
     public static boolean debugLogging = false;
+    // true while anyone is using /gpdebug, checked before any debug work is done
+    public static volatile boolean debugActive = false;
     private Map<String, GPDebugData> debugUserMap = Maps.newHashMap();
 
     // how far away to search from a tree trunk for its branch blocks
@@ -306,6 +315,12 @@ public static void addLogEntry(String entry, CustomLogEntryTypes customLogType,
     }
 
     public static void addEventLogEntry(Event event, GPClaim claim, Location<World> location, User user, String permission) {
+        if (!debugActive) {
+            return;
+        }
+
+        Object target = null;
+        boolean targetResolved = false;
         for (GPDebugData debugEntry : GriefPreventionPlugin.instance.getDebugUserMap().values()) {
             final CommandSource source = debugEntry.getSource();
             final User debugUser = debugEntry.getTarget();
@@ -315,30 +330,14 @@ public static void addEventLogEntry(Event event, GPClaim claim, Location<World>
                 }
             }
 
-            Object target = null;
-            if (event instanceof TargetEntityEvent) {
-                target = ((TargetEntityEvent) event).getTargetEntity();
-            } else if (event instanceof TargetBlockEvent) {
-                target = ((TargetBlockEvent) event).getTargetBlock();
-            } else if (event instanceof ChangeBlockEvent) {
-                if (event instanceof ChangeBlockEvent.Break) {
-                    target = ((ChangeBlockEvent) event).getTransactions().get(0).getOriginal();
-                } else {
-                    target = ((ChangeBlockEvent) event).getTransactions().get(0).getFinal();
-                }
+            if (!targetResolved) {
+                target = getEventTarget(event);
+                targetResolved = true;
             }
 
-            // record
+            // record, formatted when pasted
             if (debugEntry.isRecording()) {
-                String targetIdentifier = GPPermissionHandler.getPermissionIdentifier(target);
-                permission = permission.replace("griefprevention.flag.", "");
-                final String messageClaim = claim == null ? "none" : claim.getUniqueId().toString();
-                final String messageEvent = event.getClass().getSimpleName().replace('$', '.').replace(".Impl", "");
-                final String messageSource = GPPermissionHandler.getPermissionIdentifier(event.getCause().root());
-                final String messageTarget = targetIdentifier.isEmpty() ? "none" : targetIdentifier;
-                final String messageLocation = location == null ? "none" : location.getBlockPosition().toString();
-                final String messageUser = user == null ? "none" : user.getName();
-                debugEntry.addRecord(messageClaim, messageEvent, messageSource, messageTarget, messageLocation, messageUser);
+                debugEntry.addRecord(claim, event, target, location, user);
                 continue;
             }
 
@@ -369,6 +368,22 @@ public static void addEventLogEntry(Event event, GPClaim claim, Location<World>
         }
     }
 
+    @Nullable
+    private static Object getEventTarget(Event event) {
+        if (event instanceof TargetEntityEvent) {
+            return ((TargetEntityEvent) event).getTargetEntity();
+        } else if (event instanceof TargetBlockEvent) {
+            return ((TargetBlockEvent) event).getTargetBlock();
+        } else if (event instanceof ChangeBlockEvent) {
+            if (event instanceof ChangeBlockEvent.Break) {
+                return ((ChangeBlockEvent) event).getTransactions().get(0).getOriginal();
+            } else {
+                return ((ChangeBlockEvent) event).getTransactions().get(0).getFinal();
+            }
+        }
+        return null;
+    }
+
     public static void addLogEntry(String entry, CustomLogEntryTypes customLogType) {
         addLogEntry(entry, customLogType, false);
     }
@@ -740,18 +755,23 @@ public void onServerAboutToStart(GameAboutToStartServerEvent event) {
         }
 
         if (this.dataStore == null) {
+            final DatabaseCategory database = GriefPreventionPlugin.getGlobalConfig().getConfig().database;
             try {
-                this.dataStore = new FlatFileDataStore();
+                if (!database.dbURL.isEmpty()) {
+                    this.dataStore = new DatabaseDataStore(database.dbURL, database.dbUsername, database.dbPassword);
+                } else {
+                    this.dataStore = new FlatFileDataStore();
+                }
                 this.dataStore.initialize();
             } catch (Exception e) {
-                this.getLogger().info("Unable to initialize the file system data store.  Details:");
+                this.getLogger().info("Unable to initialize the " + (database.dbURL.isEmpty() ? "file system" : "database") + " data store.  Details:");
                 this.getLogger().info(e.getMessage());
                 e.printStackTrace();
                 return;
             }
         }
 
-        String dataMode = (this.dataStore instanceof FlatFileDataStore) ? "(File Mode)" : "(Database Mode)";
+        String dataMode = (this.dataStore instanceof DatabaseDataStore) ? "(Database Mode)" : "(File Mode)";
         Sponge.getEventManager().registerListeners(this, new BlockEventHandler(dataStore));
         Sponge.getEventManager().registerListeners(this, new PlayerEventHandler(dataStore, this));
         Sponge.getEventManager().registerListeners(this, new EntityEventHandler(dataStore));
@@ -770,7 +790,7 @@ public void onServerAboutToStart(GameAboutToStartServerEvent event) {
                 .getOrCreate(GameProfile.of(GriefPreventionPlugin.WORLD_USER_UUID, GriefPreventionPlugin.WORLD_USER_NAME));
         // unless claim block accrual is disabled, start the recurring per 10
         // minute event to give claim blocks to online players
-        DeliverClaimBlocksTask task = new DeliverClaimBlocksTask(null);
+        DeliverClaimBlocksTask task = new DeliverClaimBlocksTask();
         Sponge.getScheduler().createTaskBuilder().interval(5, TimeUnit.MINUTES).execute(task)
                 .submit(GriefPreventionPlugin.instance);
 
@@ -806,6 +826,17 @@ public void onServerAboutToStart(GameAboutToStartServerEvent event) {
         this.logger.info("Loaded successfully.");
     }
 
+    @Listener
+    public void onServerStopped(GameStoppedServerEvent event) {
+        // worlds have been saved at this point, make sure every queued claim write is persisted
+        if (this.dataStore != null) {
+            this.dataStore.flushClaimWrites();
+        }
+        if (this.customLogger != null) {
+            this.customLogger.close();
+        }
+    }
+
     // handles sub commands
     public void registerBaseCommands() {
 
@@ -826,6 +857,7 @@ public void registerBaseCommands() {
         debugChoicesBuilder.put("log", "log");
         debugChoicesBuilder.put("record", "record");
         debugChoicesBuilder.put("paste", "paste");
+        debugChoicesBuilder.put("save", "save");
 
         ImmutableMap.Builder<String, String> contextChoicesBuilder = ImmutableMap.builder();
         contextChoicesBuilder.put("default", "default");
@@ -1630,6 +1662,7 @@ public void loadConfig() {
                 Files.createFile(DataStore.softMuteFilePath);
             }
 
+            GPPermissionHandler.clearIdentifierCache();
             Path rootConfigPath = this.getConfigPath().resolve("worlds");
             messageStorage = new MessageStorage(DataStore.messagesFilePath);
             messageData = messageStorage.getConfig();
@@ -1656,7 +1689,7 @@ public void loadConfig() {
 
                 // refresh player data
                 for (GPClaimManager claimWorldManager : GriefPreventionPlugin.instance.dataStore.claimWorldManagers.values()) {
-                    for (GPPlayerData playerData : claimWorldManager.getPlayerDataMap().values()) {
+                    for (GPPlayerData playerData : claimWorldManager.getResidentPlayerData()) {
                         playerData.refreshPlayerOptions();
                     }
                 }
@@ -1956,6 +1989,19 @@ public Map<String, GPDebugData> getDebugUserMap() {
         return this.debugUserMap;
     }
 
+    public void addDebugUser(String identifier, GPDebugData debugData) {
+        this.debugUserMap.put(identifier, debugData);
+        debugActive = true;
+    }
+
+    public void removeDebugUser(String identifier) {
+        final GPDebugData debugData = this.debugUserMap.remove(identifier);
+        if (debugData != null) {
+            debugData.close();
+        }
+        debugActive = !this.debugUserMap.isEmpty();
+    }
+
     public static boolean isEntityProtected(Entity entity) {
         // ignore monsters
         if (SpongeImplHooks.isCreatureOfType((net.minecraft.entity.Entity) entity, EnumCreatureType.MONSTER)) {
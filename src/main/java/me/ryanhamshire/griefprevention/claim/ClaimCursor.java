@@ -0,0 +1,80 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+// Remembers the claim resolved at a location along with the surrounding region
+// where the result cannot change, as no other claim boundary lies inside it.
+// Lookups within that region are answered with an integer bounds check.
+// Cursors are immutable so they can be safely shared with async permission checks.
+public class ClaimCursor {
+
+    private final ClaimIndex index;
+    private final int modCount;
+    private final GPClaim claim;
+    private final boolean ignoreHeight;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int maxX;
+    private final int maxY;
+    private final int maxZ;
+
+    ClaimCursor(ClaimIndex index, GPClaim claim, boolean ignoreHeight, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        this.index = index;
+        this.modCount = index.getModCount();
+        this.claim = claim;
+        this.ignoreHeight = ignoreHeight;
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    public GPClaim getClaim() {
+        return this.claim;
+    }
+
+    // Whether this cursor still resolves the claim at the given block position
+    public boolean contains(ClaimIndex index, int x, int y, int z, boolean ignoreHeight) {
+        return this.index == index
+                && this.modCount == index.getModCount()
+                && this.ignoreHeight == ignoreHeight
+                && x >= this.minX && x <= this.maxX
+                && z >= this.minZ && z <= this.maxZ
+                && y >= this.minY && y <= this.maxY;
+    }
+
+    // Whether this cursor still resolves every block within radius of the given block position
+    public boolean contains(ClaimIndex index, int x, int y, int z, int radius, boolean ignoreHeight) {
+        return this.index == index
+                && this.modCount == index.getModCount()
+                && this.ignoreHeight == ignoreHeight
+                && x - radius >= this.minX && x + radius <= this.maxX
+                && z - radius >= this.minZ && z + radius <= this.maxZ
+                && y - radius >= this.minY && y + radius <= this.maxY;
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import com.google.common.collect.Maps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.math.ChunkPos;
+import org.spongepowered.api.world.Location;
+import org.spongepowered.api.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+// Spatial index of every claim in a world, including children.
+// Claims are bucketed by the chunks they cover and each bucket is kept ordered
+// from the deepest claim up to the top level claims. Since claims on the same
+// level can never overlap, the first claim in a bucket containing a location is
+// always the most specific claim at that location.
+// Buckets are copy-on-write arrays so lookups never box or allocate.
+public class ClaimIndex {
+
+    public static final GPClaim[] EMPTY = new GPClaim[0];
+
+    // Chunk hash -> claims covering chunk, deepest first
+    private final Long2ObjectOpenHashMap<GPClaim[]> chunksToClaims = new Long2ObjectOpenHashMap<>(4096);
+    // Claim -> chunk bounds, depth and block bounds used when claim was indexed
+    private final Map<GPClaim, IndexedBounds> indexedBounds = Maps.newHashMap();
+    // Incremented on every change so cursors know when they are stale
+    private int modCount = 0;
+
+    // Indexes a single claim using its current bounds and depth
+    // If claim is already indexed at the same depth, only chunks that changed are touched
+    public void add(GPClaim claim) {
+        if (claim.isWilderness()) {
+            return;
+        }
+
+        final int[] bounds = new int[] {
+                claim.lesserBoundaryCorner.getBlockX() >> 4,
+                claim.lesserBoundaryCorner.getBlockZ() >> 4,
+                claim.greaterBoundaryCorner.getBlockX() >> 4,
+                claim.greaterBoundaryCorner.getBlockZ() >> 4,
+                getDepth(claim)};
+        final IndexedBounds oldIndexedBounds = this.indexedBounds.get(claim);
+        int[] oldBounds = oldIndexedBounds == null ? null : oldIndexedBounds.chunks;
+        if (oldBounds != null && oldBounds[4] != bounds[4]) {
+            // depth changed, claim must be re-sorted in every chunk
+            this.remove(claim);
+            oldBounds = null;
+        }
+
+        if (oldBounds != null) {
+            for (int x = oldBounds[0]; x <= oldBounds[2]; x++) {
+                for (int z = oldBounds[1]; z <= oldBounds[3]; z++) {
+                    if (!isInside(bounds, x, z)) {
+                        this.removeFromChunk(ChunkPos.chunkXZ2Int(x, z), claim);
+                    }
+                }
+            }
+        }
+
+        for (int x = bounds[0]; x <= bounds[2]; x++) {
+            for (int z = bounds[1]; z <= bounds[3]; z++) {
+                if (oldBounds == null || !isInside(oldBounds, x, z)) {
+                    this.addToChunk(ChunkPos.chunkXZ2Int(x, z), claim, bounds[4]);
+                }
+            }
+        }
+
+        this.indexedBounds.put(claim, new IndexedBounds(bounds, createBounds(claim, false), createBounds(claim, true)));
+        this.modCount++;
+    }
+
+    // Indexes claim along with all of its children
+    // Used whenever a claim is added or moved to a different parent as the depth of all children changes
+    public void addTree(GPClaim claim) {
+        this.add(claim);
+        for (int i = 0; i < claim.children.size(); i++) {
+            this.addTree((GPClaim) claim.children.get(i));
+        }
+    }
+
+    public void remove(GPClaim claim) {
+        final IndexedBounds indexedBounds = this.indexedBounds.remove(claim);
+        if (indexedBounds == null) {
+            return;
+        }
+
+        final int[] bounds = indexedBounds.chunks;
+        this.modCount++;
+        for (int x = bounds[0]; x <= bounds[2]; x++) {
+            for (int z = bounds[1]; z <= bounds[3]; z++) {
+                this.removeFromChunk(ChunkPos.chunkXZ2Int(x, z), claim);
+            }
+        }
+    }
+
+    public void removeTree(GPClaim claim) {
+        this.remove(claim);
+        for (int i = 0; i < claim.children.size(); i++) {
+            this.removeTree((GPClaim) claim.children.get(i));
+        }
+    }
+
+    // Returns the deepest claim containing location, or null if location is in the wilderness
+    // ignoreHeight = TRUE means that a location UNDER an existing claim will return the claim
+    @Nullable
+    public GPClaim getClaimAt(Location<World> location, boolean ignoreHeight) {
+        final GPClaim[] claimsInChunk = this.chunksToClaims.get(ChunkPos.chunkXZ2Int(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        if (claimsInChunk == null) {
+            return null;
+        }
+
+        for (int i = 0; i < claimsInChunk.length; i++) {
+            final GPClaim claim = claimsInChunk[i];
+            if (claim.contains(location, claim.isCuboid() ? false : ignoreHeight, false) && isInsideParents(claim, location, ignoreHeight)) {
+                return claim;
+            }
+        }
+
+        return null;
+    }
+
+    // Resolves the claim at location along with the largest region around it, within the location's chunk,
+    // where the resolved claim cannot change.
+    public ClaimCursor createCursor(Location<World> location, boolean ignoreHeight, GPClaim wildernessClaim) {
+        final int x = location.getBlockX();
+        final int y = location.getBlockY();
+        final int z = location.getBlockZ();
+        final GPClaim claim = this.getClaimAt(location, ignoreHeight);
+        // {minX, minY, minZ, maxX, maxY, maxZ}
+        final int[] region = new int[] {x & ~15, Integer.MIN_VALUE, z & ~15, x | 15, Integer.MAX_VALUE, z | 15};
+
+        // the resolved claim and all of its parents contain location
+        GPClaim parent = claim;
+        while (parent != null) {
+            final int[] box = this.getBounds(parent, ignoreHeight);
+            region[0] = Math.max(region[0], box[0]);
+            region[1] = Math.max(region[1], box[1]);
+            region[2] = Math.max(region[2], box[2]);
+            region[3] = Math.min(region[3], box[3]);
+            region[4] = Math.min(region[4], box[4]);
+            region[5] = Math.min(region[5], box[5]);
+            parent = parent.parent;
+        }
+
+        // every other claim in chunk is cut out of region
+        for (GPClaim other : this.getClaimsInChunk(ChunkPos.chunkXZ2Int(x >> 4, z >> 4))) {
+            if (other == claim || isParent(claim, other)) {
+                continue;
+            }
+            if (!exclude(region, this.getBounds(other, ignoreHeight), x, y, z)) {
+                // location is within a boundary we can't cut around, only cache the block itself
+                region[0] = region[3] = x;
+                region[1] = region[4] = y;
+                region[2] = region[5] = z;
+                break;
+            }
+        }
+
+        return new ClaimCursor(this, claim == null ? wildernessClaim : claim, ignoreHeight, region[0], region[1], region[2], region[3], region[4], region[5]);
+    }
+
+    // Returns a cursor covering the whole region when every block in it resolves to the same claim,
+    // or the wilderness. Returns null when a claim boundary crosses the region.
+    @Nullable
+    public ClaimCursor createRegionCursor(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean ignoreHeight, GPClaim wildernessClaim) {
+        final int[] region = new int[] {minX, minY, minZ, maxX, maxY, maxZ};
+        final List<GPClaim> containing = new ArrayList<>(2);
+        for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++) {
+            for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++) {
+                for (GPClaim claim : this.getClaimsInChunk(ChunkPos.chunkXZ2Int(chunkX, chunkZ))) {
+                    final int[] box = this.getBounds(claim, ignoreHeight);
+                    if (!intersects(region, box)) {
+                        continue;
+                    }
+                    if (!containsRegion(box, region)) {
+                        return null;
+                    }
+                    if (!containing.contains(claim)) {
+                        containing.add(claim);
+                    }
+                }
+            }
+        }
+
+        GPClaim claim = null;
+        for (GPClaim other : containing) {
+            if (claim == null || this.getIndexedDepth(other) > this.getIndexedDepth(claim)) {
+                claim = other;
+            }
+        }
+        // every claim containing the region must be the resolved claim or one of its parents
+        for (GPClaim other : containing) {
+            if (other != claim && !isParent(claim, other)) {
+                return null;
+            }
+        }
+        GPClaim parent = claim == null ? null : claim.parent;
+        while (parent != null) {
+            if (!containing.contains(parent)) {
+                return null;
+            }
+            parent = parent.parent;
+        }
+
+        return new ClaimCursor(this, claim == null ? wildernessClaim : claim, ignoreHeight, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    // Returns the largest radius, up to maxRadius, of a square centered on x, z that doesn't overlap any claim,
+    // or -1 if x, z is already inside a claim. Claims are compared in 2D as new basic claims span the full height.
+    public int getFreeRadius(int x, int z, int maxRadius) {
+        int radius = maxRadius;
+        for (int chunkX = (x - maxRadius) >> 4; chunkX <= (x + maxRadius) >> 4; chunkX++) {
+            for (int chunkZ = (z - maxRadius) >> 4; chunkZ <= (z + maxRadius) >> 4; chunkZ++) {
+                for (GPClaim claim : this.getClaimsInChunk(ChunkPos.chunkXZ2Int(chunkX, chunkZ))) {
+                    // distance from x, z to the claim along each axis, 0 when within its range
+                    final int distanceX = Math.max(0, Math.max(claim.lesserBoundaryCorner.getBlockX() - x, x - claim.greaterBoundaryCorner.getBlockX()));
+                    final int distanceZ = Math.max(0, Math.max(claim.lesserBoundaryCorner.getBlockZ() - z, z - claim.greaterBoundaryCorner.getBlockZ()));
+                    // a square reaches the claim once its radius covers the larger of both distances
+                    radius = Math.min(radius, Math.max(distanceX, distanceZ) - 1);
+                    if (radius < 0) {
+                        return -1;
+                    }
+                }
+            }
+        }
+
+        return radius;
+    }
+
+    // Returns all claims covering chunk, deepest first
+    // Note: The returned array is shared and must not be modified
+    public GPClaim[] getClaimsInChunk(long chunkHash) {
+        final GPClaim[] claimsInChunk = this.chunksToClaims.get(chunkHash);
+        return claimsInChunk == null ? EMPTY : claimsInChunk;
+    }
+
+    public Long2ObjectMap<GPClaim[]> getChunksToClaims() {
+        return Long2ObjectMaps.unmodifiable(this.chunksToClaims);
+    }
+
+    public int getModCount() {
+        return this.modCount;
+    }
+
+    public boolean isIndexed(GPClaim claim) {
+        return this.indexedBounds.containsKey(claim);
+    }
+
+    public int size() {
+        return this.indexedBounds.size();
+    }
+
+    public void clear() {
+        this.chunksToClaims.clear();
+        this.indexedBounds.clear();
+        this.modCount++;
+    }
+
+    private void addToChunk(long chunkHash, GPClaim claim, int depth) {
+        final GPClaim[] claimsInChunk = this.chunksToClaims.get(chunkHash);
+        if (claimsInChunk == null) {
+            this.chunksToClaims.put(chunkHash, new GPClaim[] {claim});
+            return;
+        }
+
+        int index = 0;
+        while (index < claimsInChunk.length && this.getIndexedDepth(claimsInChunk[index]) >= depth) {
+            index++;
+        }
+
+        final GPClaim[] newClaims = new GPClaim[claimsInChunk.length + 1];
+        System.arraycopy(claimsInChunk, 0, newClaims, 0, index);
+        newClaims[index] = claim;
+        System.arraycopy(claimsInChunk, index, newClaims, index + 1, claimsInChunk.length - index);
+        this.chunksToClaims.put(chunkHash, newClaims);
+    }
+
+    private void removeFromChunk(long chunkHash, GPClaim claim) {
+        final GPClaim[] claimsInChunk = this.chunksToClaims.get(chunkHash);
+        if (claimsInChunk == null) {
+            return;
+        }
+
+        int index = -1;
+        for (int i = 0; i < claimsInChunk.length; i++) {
+            if (claimsInChunk[i] == claim) {
+                index = i;
+                break;
+            }
+        }
+        if (index == -1) {
+            return;
+        }
+
+        if (claimsInChunk.length == 1) {
+            this.chunksToClaims.remove(chunkHash);
+            return;
+        }
+
+        final GPClaim[] newClaims = new GPClaim[claimsInChunk.length - 1];
+        System.arraycopy(claimsInChunk, 0, newClaims, 0, index);
+        System.arraycopy(claimsInChunk, index + 1, newClaims, index, claimsInChunk.length - index - 1);
+        this.chunksToClaims.put(chunkHash, newClaims);
+    }
+
+    private int getIndexedDepth(GPClaim claim) {
+        final IndexedBounds bounds = this.indexedBounds.get(claim);
+        if (bounds != null) {
+            return bounds.chunks[4];
+        }
+
+        return getDepth(claim);
+    }
+
+    // Returns the block bounds of claim matching GPClaim#contains {minX, minY, minZ, maxX, maxY, maxZ}
+    // Note: The returned array is shared and must not be modified
+    private int[] getBounds(GPClaim claim, boolean ignoreHeight) {
+        final IndexedBounds bounds = this.indexedBounds.get(claim);
+        if (bounds == null) {
+            return createBounds(claim, ignoreHeight);
+        }
+
+        return ignoreHeight ? bounds.blocksIgnoreHeight : bounds.blocks;
+    }
+
+    private static int[] createBounds(GPClaim claim, boolean ignoreHeight) {
+        final int[] box = new int[] {
+                claim.lesserBoundaryCorner.getBlockX(),
+                claim.lesserBoundaryCorner.getBlockY(),
+                claim.lesserBoundaryCorner.getBlockZ(),
+                claim.greaterBoundaryCorner.getBlockX(),
+                claim.greaterBoundaryCorner.getBlockY(),
+                claim.greaterBoundaryCorner.getBlockZ()};
+        if (!claim.isCuboid()) {
+            box[1] = ignoreHeight ? Integer.MIN_VALUE : box[1];
+            box[4] = Integer.MAX_VALUE;
+        }
+
+        return box;
+    }
+
+    private static boolean intersects(int[] region, int[] box) {
+        for (int i = 0; i < 3; i++) {
+            if (box[i + 3] < region[i] || box[i] > region[i + 3]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean containsRegion(int[] box, int[] region) {
+        for (int i = 0; i < 3; i++) {
+            if (region[i] < box[i] || region[i + 3] > box[i + 3]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Shrinks region so it no longer intersects box while still containing the location.
+    // The axis that keeps the largest part of the region is cut.
+    // Returns false if box contains location.
+    private static boolean exclude(int[] region, int[] box, int x, int y, int z) {
+        for (int i = 0; i < 3; i++) {
+            if (box[i + 3] < region[i] || box[i] > region[i + 3]) {
+                return true;
+            }
+        }
+
+        final int[] pos = new int[] {x, y, z};
+        int bestAxis = -1;
+        int bestValue = 0;
+        double bestRatio = -1;
+        for (int i = 0; i < 3; i++) {
+            final long length = getLength(region[i], region[i + 3], i);
+            if (pos[i] < box[i]) {
+                final double ratio = getLength(region[i], box[i] - 1, i) / (double) length;
+                if (ratio > bestRatio) {
+                    bestAxis = i + 3;
+                    bestValue = box[i] - 1;
+                    bestRatio = ratio;
+                }
+            } else if (pos[i] > box[i + 3]) {
+                final double ratio = getLength(box[i + 3] + 1, region[i + 3], i) / (double) length;
+                if (ratio > bestRatio) {
+                    bestAxis = i;
+                    bestValue = box[i + 3] + 1;
+                    bestRatio = ratio;
+                }
+            }
+        }
+
+        if (bestAxis == -1) {
+            return false;
+        }
+
+        region[bestAxis] = bestValue;
+        return true;
+    }
+
+    // Y is unbounded for 2D claims so its length is capped to world height
+    private static long getLength(int min, int max, int axis) {
+        final long length = (long) max - min + 1;
+        return axis == 1 ? Math.min(length, 256) : length;
+    }
+
+    private static boolean isParent(@Nullable GPClaim claim, GPClaim other) {
+        if (claim == null) {
+            return false;
+        }
+
+        GPClaim parent = claim.parent;
+        while (parent != null) {
+            if (parent == other) {
+                return true;
+            }
+            parent = parent.parent;
+        }
+
+        return false;
+    }
+
+    private static boolean isInside(int[] bounds, int x, int z) {
+        return x >= bounds[0] && x <= bounds[2] && z >= bounds[1] && z <= bounds[3];
+    }
+
+    // A child is only reachable when its location is also within all of its parents.
+    // NOTE: if a player creates children then resizes the parent claim,
+    // it's possible that a child can reach outside of its parent's boundaries.
+    private static boolean isInsideParents(GPClaim claim, Location<World> location, boolean ignoreHeight) {
+        GPClaim parent = claim.parent;
+        while (parent != null) {
+            if (!parent.contains(location, parent.isCuboid() ? false : ignoreHeight, false)) {
+                return false;
+            }
+            parent = parent.parent;
+        }
+
+        return true;
+    }
+
+    public static int getDepth(GPClaim claim) {
+        int depth = 0;
+        GPClaim parent = claim.parent;
+        while (parent != null) {
+            depth++;
+            parent = parent.parent;
+        }
+
+        return depth;
+    }
+
+    private static class IndexedBounds {
+
+        // {minX, minZ, maxX, maxZ, depth} in chunks
+        private final int[] chunks;
+        // {minX, minY, minZ, maxX, maxY, maxZ} in blocks
+        private final int[] blocks;
+        private final int[] blocksIgnoreHeight;
+
+        private IndexedBounds(int[] chunks, int[] blocks, int[] blocksIgnoreHeight) {
+            this.chunks = chunks;
+            this.blocks = blocks;
+            this.blocksIgnoreHeight = blocksIgnoreHeight;
+        }
+    }
+}
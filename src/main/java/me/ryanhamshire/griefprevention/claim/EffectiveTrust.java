@@ -0,0 +1,83 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.claim;
+
+import com.google.common.collect.Maps;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.configuration.IClaimData;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+// User trusts of a claim merged with the trusts it inherits from its parents.
+// A view stays valid until the claim's own trusts change or the parent view it
+// was built from is replaced, so only the changed part of a hierarchy is rebuilt.
+public class EffectiveTrust {
+
+    private final int trustVersion;
+    @Nullable private final EffectiveTrust parent;
+    private final Map<UUID, EnumSet<TrustType>> trusts;
+    private final boolean publicTrust;
+
+    EffectiveTrust(IClaimData claimData, @Nullable EffectiveTrust parent) {
+        this.trustVersion = claimData.getTrustVersion();
+        this.parent = parent;
+        if (parent == null) {
+            // nothing inherited, use the claim's own index as is
+            this.trusts = claimData.getTrustIndex();
+        } else {
+            this.trusts = Maps.newHashMap();
+            for (Map.Entry<UUID, EnumSet<TrustType>> entry : parent.trusts.entrySet()) {
+                this.trusts.put(entry.getKey(), EnumSet.copyOf(entry.getValue()));
+            }
+            for (Map.Entry<UUID, EnumSet<TrustType>> entry : claimData.getTrustIndex().entrySet()) {
+                final EnumSet<TrustType> types = this.trusts.get(entry.getKey());
+                if (types == null) {
+                    this.trusts.put(entry.getKey(), EnumSet.copyOf(entry.getValue()));
+                } else {
+                    types.addAll(entry.getValue());
+                }
+            }
+        }
+        this.publicTrust = this.trusts.containsKey(GriefPreventionPlugin.PUBLIC_UUID);
+    }
+
+    boolean isValid(IClaimData claimData, @Nullable EffectiveTrust parent) {
+        return this.trustVersion == claimData.getTrustVersion() && this.parent == parent;
+    }
+
+    public boolean isTrusted(UUID uuid, TrustType type) {
+        if (this.publicTrust) {
+            return true;
+        }
+
+        final EnumSet<TrustType> types = this.trusts.get(uuid);
+        return types != null && types.contains(type);
+    }
+}
@@ -31,6 +31,7 @@
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
@@ -122,7 +123,6 @@ public class GPClaim implements Claim {
     public Location<World> greaterBoundaryCorner;
     public World world;
     private ClaimType type = ClaimType.BASIC;
-    private Set<Long> chunkHashes;
     private final int hashCode;
     private final GPClaimManager worldClaimManager;
 
@@ -138,13 +138,14 @@ public class GPClaim implements Claim {
 
     private ClaimStorageData claimStorage;
     private IClaimData claimData;
+    // trusts merged with inherited parents, rebuilt when anything in the chain changes
+    private EffectiveTrust effectiveTrust;
 
     public GPClaim parent = null;
     public ArrayList<Claim> children = new ArrayList<>();
     public Visualization visualization;
     public List<UUID> playersWatching = new ArrayList<>();
 
-    private GPPlayerData ownerPlayerData;
     private Account economyAccount;
 
     public GPClaim(World world, Vector3i point1, Vector3i point2, ClaimType type, UUID ownerUniqueId) {
@@ -219,7 +220,6 @@ public GPClaim(Location<World> lesserBoundaryCorner, Location<World> greaterBoun
         this.world = lesserBoundaryCorner.getExtent();
         if (ownerUniqueId != null) {
             this.ownerUniqueId = ownerUniqueId;
-            this.ownerPlayerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(this.world, this.ownerUniqueId);
         }
         this.type = type;
         this.context = new Context("gp_claim", this.id.toString());
@@ -268,12 +268,14 @@ public Visualization getVisualizer() {
         return this.visualization;
     }
 
+    // Resolved on each call so claims never pin player data that was evicted from the offline cache
+    @Nullable
     public GPPlayerData getOwnerPlayerData() {
-        if (this.ownerPlayerData == null && this.ownerUniqueId != null) {
-            this.ownerPlayerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(this.world, this.ownerUniqueId);
+        if (this.ownerUniqueId == null) {
+            return null;
         }
 
-        return this.ownerPlayerData;
+        return this.worldClaimManager.getOrLoadPlayerData(this.ownerUniqueId);
     }
 
     public UUID getOwnerUniqueId() {
@@ -511,7 +513,7 @@ public Text allowEdit(User user) {
             }
         }
 
-        if (this.parent != null && this.getData().doesInheritParent()) {
+        if (this.parent != null && this.getData() != null && this.getData().doesInheritParent()) {
             return this.parent.allowEdit(user);
         }
 
@@ -834,25 +836,19 @@ public ArrayList<Chunk> getChunks() {
 
     @Override
     public Set<Long> getChunkHashes() {
-        return this.getChunkHashes(true);
-    }
-
-    public Set<Long> getChunkHashes(boolean refresh) {
-        if (this.chunkHashes == null || refresh) {
-            this.chunkHashes = new HashSet<Long>();
-            int smallX = this.lesserBoundaryCorner.getBlockX() >> 4;
-            int smallZ = this.lesserBoundaryCorner.getBlockZ() >> 4;
-            int largeX = this.greaterBoundaryCorner.getBlockX() >> 4;
-            int largeZ = this.greaterBoundaryCorner.getBlockZ() >> 4;
-    
-            for (int x = smallX; x <= largeX; x++) {
-                for (int z = smallZ; z <= largeZ; z++) {
-                    this.chunkHashes.add(ChunkPos.chunkXZ2Int(x, z));
-                }
+        Set<Long> chunkHashes = new LongOpenHashSet();
+        int smallX = this.lesserBoundaryCorner.getBlockX() >> 4;
+        int smallZ = this.lesserBoundaryCorner.getBlockZ() >> 4;
+        int largeX = this.greaterBoundaryCorner.getBlockX() >> 4;
+        int largeZ = this.greaterBoundaryCorner.getBlockZ() >> 4;
+
+        for (int x = smallX; x <= largeX; x++) {
+            for (int z = smallZ; z <= largeZ; z++) {
+                chunkHashes.add(ChunkPos.chunkXZ2Int(x, z));
             }
         }
 
-        return this.chunkHashes;
+        return chunkHashes;
     }
 
     @Override
@@ -885,6 +881,14 @@ public void setClaimStorage(ClaimStorageData storage) {
         this.claimStorage = storage;
     }
 
+    // keeps the owner's used claim blocks current after the area, type or parent of this claim changed
+    public void updateOwnerClaimBlocks() {
+        final GPPlayerData ownerData = DATASTORE.getClaimWorldManager(this.world.getProperties()).getPlayerData(this.getOwnerUniqueId());
+        if (ownerData != null) {
+            ownerData.updateClaimBlocks(this);
+        }
+    }
+
     public void updateClaimStorageData() {
         if (!this.isAdminClaim()) {
             this.claimStorage.getConfig().setOwnerUniqueId(this.getOwnerUniqueId());
@@ -968,7 +972,7 @@ public ClaimResult transferOwner(UUID newOwnerID) {
             return new GPClaimResult(ClaimResultType.WRONG_CLAIM_TYPE, Text.of(TextColors.RED, "Admin claims cannot be transferred."));
         }
 
-        GPPlayerData ownerData = DATASTORE.getOrCreatePlayerData(this.world, this.getOwnerUniqueId());
+        final UUID previousOwnerID = this.getOwnerUniqueId();
         // determine new owner
         GPPlayerData newOwnerData = DATASTORE.getOrCreatePlayerData(this.world, newOwnerID);
 
@@ -986,6 +990,8 @@ public ClaimResult transferOwner(UUID newOwnerID) {
             return new GPClaimResult(this, ClaimResultType.CLAIM_EVENT_CANCELLED, event.getMessage().orElse(null));
         }
 
+        final GPClaimManager claimWorldManager = DATASTORE.getClaimWorldManager(this.world.getProperties());
+        claimWorldManager.removeOwnerClaim(this);
         if (this.isAdminClaim()) {
             // convert to basic
             this.type = ClaimType.BASIC;
@@ -999,12 +1005,16 @@ public ClaimResult transferOwner(UUID newOwnerID) {
         }
 
         this.claimData.setOwnerUniqueId(newOwnerID);
+        claimWorldManager.addOwnerClaim(this);
         if (this.isBasicClaim()) {
-            ownerData.getInternalClaims().remove(this);
-            newOwnerData.getInternalClaims().add(this);
+            // previous owner may be offline, their claim list is rebuilt when loaded
+            final GPPlayerData ownerData = claimWorldManager.getPlayerData(previousOwnerID);
+            if (ownerData != null) {
+                ownerData.removeClaim(this);
+            }
+            newOwnerData.addClaim(this);
         }
 
-        this.ownerPlayerData = newOwnerData;
         this.getClaimStorage().save();
         return new GPClaimResult(this, ClaimResultType.SUCCESS);
     }
@@ -1027,20 +1037,23 @@ public ClaimResult doesClaimOverlap() {
             return new GPClaimResult(this, ClaimResultType.SUCCESS);
         }
 
-        final GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
-        final Set<Long> chunkHashes = this.getChunkHashes(true);
+        final ClaimIndex claimIndex = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties()).getClaimIndex();
+        final int smallX = this.lesserBoundaryCorner.getBlockX() >> 4;
+        final int smallZ = this.lesserBoundaryCorner.getBlockZ() >> 4;
+        final int largeX = this.greaterBoundaryCorner.getBlockX() >> 4;
+        final int largeZ = this.greaterBoundaryCorner.getBlockZ() >> 4;
 
-        // Since there is no parent we need to check all claims stored in chunk hashes
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null || claimsInChunk.size() == 0) {
-                continue;
-            }
-            for (Claim child : claimsInChunk) {
-                final GPClaim gpChild = (GPClaim) child;
-                // First check if newly resized claim is crossing another
-                if (this.isBandingAcross(gpChild) || gpChild.isBandingAcross(this)) {
-                    return new GPClaimResult(child, ClaimResultType.OVERLAPPING_CLAIM);
+        // Since there is no parent we need to check all top level claims stored in chunk hashes
+        for (int x = smallX; x <= largeX; x++) {
+            for (int z = smallZ; z <= largeZ; z++) {
+                for (GPClaim gpChild : claimIndex.getClaimsInChunk(ChunkPos.chunkXZ2Int(x, z))) {
+                    if (gpChild.parent != null) {
+                        continue;
+                    }
+                    // First check if newly resized claim is crossing another
+                    if (this.isBandingAcross(gpChild) || gpChild.isBandingAcross(this)) {
+                        return new GPClaimResult(gpChild, ClaimResultType.OVERLAPPING_CLAIM);
+                    }
                 }
             }
         }
@@ -1135,34 +1148,34 @@ public ClaimResult checkArea(boolean resize) {
             this.worldClaimManager.getWildernessClaim().migrateClaims(claimsToMigrate);
         }
 
-        final GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
-        final Set<Long> chunkHashes = this.getChunkHashes(true);
-
-        // Since there is no parent we need to check all claims stored in chunk hashes
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null || claimsInChunk.size() == 0) {
-                continue;
-            }
-            for (Claim chunkClaim : claimsInChunk) {
-                final GPClaim gpChunkClaim = (GPClaim) chunkClaim;
-                if (gpChunkClaim.equals(this)) {
-                    continue;
-                }
+        final ClaimIndex claimIndex = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties()).getClaimIndex();
+        final int smallX = this.lesserBoundaryCorner.getBlockX() >> 4;
+        final int smallZ = this.lesserBoundaryCorner.getBlockZ() >> 4;
+        final int largeX = this.greaterBoundaryCorner.getBlockX() >> 4;
+        final int largeZ = this.greaterBoundaryCorner.getBlockZ() >> 4;
 
-                // First check if newly resized claim is crossing another
-                if (this.isBandingAcross(gpChunkClaim) || gpChunkClaim.isBandingAcross(this)) {
-                    return new GPClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
-                }
-                if (gpChunkClaim.isInside(this)) {
-                    if (this.type.equals(gpChunkClaim.type)) {
-                        return new GPClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
+        // Since there is no parent we need to check all top level claims stored in chunk hashes
+        for (int x = smallX; x <= largeX; x++) {
+            for (int z = smallZ; z <= largeZ; z++) {
+                for (GPClaim gpChunkClaim : claimIndex.getClaimsInChunk(ChunkPos.chunkXZ2Int(x, z))) {
+                    if (gpChunkClaim.parent != null || gpChunkClaim.equals(this)) {
+                        continue;
                     }
-                    if (!this.canEnclose(gpChunkClaim)) {
+
+                    // First check if newly resized claim is crossing another
+                    if (this.isBandingAcross(gpChunkClaim) || gpChunkClaim.isBandingAcross(this)) {
                         return new GPClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
                     }
-                    if (!this.isSubdivision()) {
-                        claimsInArea.add(gpChunkClaim);
+                    if (gpChunkClaim.isInside(this)) {
+                        if (this.type.equals(gpChunkClaim.type)) {
+                            return new GPClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
+                        }
+                        if (!this.canEnclose(gpChunkClaim)) {
+                            return new GPClaimResult(gpChunkClaim, ClaimResultType.OVERLAPPING_CLAIM);
+                        }
+                        if (!this.isSubdivision() && !claimsInArea.contains(gpChunkClaim)) {
+                            claimsInArea.add(gpChunkClaim);
+                        }
                     }
                 }
             }
@@ -1322,33 +1335,14 @@ public ClaimResult resize(int newx1, int newx2, int newy1, int newy2, int newz1,
             return claimResult;
         }
 
-        Set<Long> currentChunkHashes = this.getChunkHashes(false);
         // This needs to be adjusted before we check for overlaps
         this.lesserBoundaryCorner = newLesserCorner;
         this.greaterBoundaryCorner = newGreaterCorner;
         GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
 
-        // resize validated, remove invalid chunkHashes
-        Set<Long> newChunkHashes = this.getChunkHashes(true);
-        if (this.parent == null) {
-            currentChunkHashes.removeAll(newChunkHashes);
-            for (Long chunkHash : currentChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk != null && claimsInChunk.size() > 0) {
-                    claimsInChunk.remove(this);
-                }
-            }
-            // add new chunk hashes
-            for (Long chunkHash : newChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk == null) {
-                    claimsInChunk = new HashSet<>();
-                    claimWorldManager.getInternalChunksToClaimsMap().put(chunkHash, claimsInChunk);
-                }
-    
-                claimsInChunk.add(this);
-            }
-        }
+        // resize validated, only chunks that changed are updated
+        claimWorldManager.getClaimIndex().add(this);
+        this.updateOwnerClaimBlocks();
 
         this.claimData.setLesserBoundaryCorner(BlockUtils.positionToString(this.lesserBoundaryCorner));
         this.claimData.setGreaterBoundaryCorner(BlockUtils.positionToString(this.greaterBoundaryCorner));
@@ -1456,29 +1450,10 @@ public ClaimResult resizeCuboid(int newx1, int newy1, int newz1, int newx2, int
 
         this.lesserBoundaryCorner = newLesserCorner;
         this.greaterBoundaryCorner = newGreaterCorner;
-        // resize validated, remove invalid chunkHashes
-        Set<Long> currentChunkHashes = this.getChunkHashes(false);
-        Set<Long> newChunkHashes = this.getChunkHashes(true);
+        // resize validated, only chunks that changed are updated
         GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
-        if (this.parent == null) {
-            currentChunkHashes.removeAll(newChunkHashes);
-            for (Long chunkHash : currentChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk != null && claimsInChunk.size() > 0) {
-                    claimsInChunk.remove(this);
-                }
-            }
-            // add new chunk hashes
-            for (Long chunkHash : newChunkHashes) {
-                Set<Claim> claimsInChunk = claimWorldManager.getInternalChunksToClaimsMap().get(chunkHash);
-                if (claimsInChunk == null) {
-                    claimsInChunk = new HashSet<>();
-                    claimWorldManager.getInternalChunksToClaimsMap().put(chunkHash, claimsInChunk);
-                }
-
-                claimsInChunk.add(this);
-            }
-        }
+        claimWorldManager.getClaimIndex().add(this);
+        this.updateOwnerClaimBlocks();
 
         this.claimData.setLesserBoundaryCorner(BlockUtils.positionToString(this.lesserBoundaryCorner));
         this.claimData.setGreaterBoundaryCorner(BlockUtils.positionToString(this.greaterBoundaryCorner));
@@ -1648,8 +1623,11 @@ private ClaimResult checkSizeLimits(Player player, GPPlayerData playerData, Vect
     public void unload() {
         // clear any references
         this.world = null;
-        if (this.ownerPlayerData != null) {
-            this.ownerPlayerData.getInternalClaims().remove(this);
+        if (this.ownerUniqueId != null) {
+            final GPPlayerData ownerData = this.worldClaimManager.getPlayerData(this.ownerUniqueId);
+            if (ownerData != null) {
+                ownerData.removeClaim(this);
+            }
         }
     }
 
@@ -1870,8 +1848,7 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId) {
         final String fileName = this.getClaimStorage().filePath.getFileName().toString();
         final Path newPath = this.getClaimStorage().folderPath.getParent().resolve(type.name().toLowerCase()).resolve(fileName);
         try {
-            Files.createDirectories(newPath.getParent());
-            Files.move(this.getClaimStorage().filePath, newPath);
+            GriefPreventionPlugin.instance.dataStore.moveClaimStorage(this.getClaimStorage().filePath, newPath);
             this.setClaimStorage(new ClaimStorageData(newPath, this.getWorldUniqueId(), (ClaimDataConfig) this.getInternalClaimData()));
             this.getClaimStorage().save();
         } catch (IOException e) {
@@ -1881,18 +1858,12 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId) {
 
         final GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
         final UUID ownerUUID = ownerUniqueId.orElse(GriefPreventionPlugin.ADMIN_USER_UUID);
-        final List<Claim> playerClaims = claimWorldManager.getInternalPlayerClaims(ownerUUID);
-        if (type == ClaimType.ADMIN) {
-            if (playerClaims != null) {
-                playerClaims.remove(this);
-            }
-        } else {
-            if (playerClaims != null && !playerClaims.contains(this)) {
-                playerClaims.add(this);
-            }
-        }
-
         final GPPlayerData playerData = claimWorldManager.getOrCreatePlayerData(ownerUUID);
+        // removed before the type changes, claim equality depends on the type
+        final GPPlayerData previousOwnerData = claimWorldManager.getPlayerData(this.getOwnerUniqueId());
+        if (previousOwnerData != null) {
+            previousOwnerData.removeClaim(this);
+        }
         final Player player = Sponge.getServer().getPlayer(ownerUUID).orElse(null);
         if (player != null) {
             playerData.revertActiveVisual(player);
@@ -1906,10 +1877,16 @@ public ClaimResult changeType(ClaimType type, Optional<UUID> ownerUniqueId) {
             }
         }
 
+        claimWorldManager.removeOwnerClaim(this);
         if (ownerUUID != GriefPreventionPlugin.ADMIN_USER_UUID) {
             this.setOwnerUniqueId(ownerUUID);
         }
         this.setType(type);
+        claimWorldManager.addOwnerClaim(this);
+        final GPPlayerData ownerData = claimWorldManager.getPlayerData(this.getOwnerUniqueId());
+        if (ownerData != null && type != ClaimType.ADMIN) {
+            ownerData.addClaim(this);
+        }
         this.visualization = null;
         this.getInternalClaimData().setRequiresSave(true);
         this.getClaimStorage().save();
@@ -1965,77 +1942,41 @@ public boolean isUserTrusted(User user, TrustType type, Set<Context> contexts) {
             return false;
         }
 
-        if (user.getUniqueId().equals(this.getOwnerUniqueId())) {
-            return true;
-        }
-
-        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(world, user.getUniqueId());
-        if (this.isAdminClaim() && playerData.canManageAdminClaims) {
-            if (playerData.debugClaimPermissions) {
-                return false;
-            }
-
-            return true;
-        }
-        if (this.isWilderness() && playerData.canManageWilderness) {
-            if (playerData.debugClaimPermissions) {
-                return false;
+        GPClaim claim = this;
+        while (claim != null) {
+            if (user.getUniqueId().equals(claim.getOwnerUniqueId())) {
+                return true;
             }
-
-            return true;
+            claim = claim.getInheritedParent();
         }
 
-        if (playerData.canIgnoreClaim(this)) {
-            return true;
-        }
+        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(world, user.getUniqueId());
+        claim = this;
+        while (claim != null) {
+            if (claim.isAdminClaim() && playerData.canManageAdminClaims) {
+                if (playerData.debugClaimPermissions) {
+                    return false;
+                }
 
-        // check public
-        if (this.claimData.getAccessors().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-            return true;
-        }
-        if (this.claimData.getBuilders().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-            return true;
-        }
-        if (this.claimData.getContainers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-            return true;
-        }
-        if (this.claimData.getManagers().contains(GriefPreventionPlugin.PUBLIC_UUID)) {
-            return true;
-        }
-        if (type == TrustType.ACCESSOR) {
-            if (this.claimData.getAccessors().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
-                return true;
-            }
-        } else if (type == TrustType.BUILDER) {
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
                 return true;
             }
-        } else if (type == TrustType.CONTAINER) {
-            if (this.claimData.getContainers().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getBuilders().contains(user.getUniqueId())) {
-                return true;
-            }
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
+            if (claim.isWilderness() && playerData.canManageWilderness) {
+                if (playerData.debugClaimPermissions) {
+                    return false;
+                }
+
                 return true;
             }
-        } else if (type == TrustType.MANAGER) {
-            if (this.claimData.getManagers().contains(user.getUniqueId())) {
+
+            if (playerData.canIgnoreClaim(claim)) {
                 return true;
             }
+            claim = claim.getInheritedParent();
+        }
+
+        // check public and user trusts of this claim and its inherited parents
+        if (this.getEffectiveTrust().isTrusted(user.getUniqueId(), type)) {
+            return true;
         }
 
         if (contexts == null) {
@@ -2043,15 +1984,29 @@ public boolean isUserTrusted(User user, TrustType type, Set<Context> contexts) {
             contexts.add(this.getContext());
         }
 
-        if (user.hasPermission(contexts, GPPermissions.getTrustPermission(type))) {
-            return true;
+        return user.hasPermission(contexts, GPPermissions.getTrustPermission(type));
+    }
+
+    // Returns the trusts of this claim merged with those of inherited parents
+    public EffectiveTrust getEffectiveTrust() {
+        final GPClaim inheritedParent = this.getInheritedParent();
+        final EffectiveTrust parentTrust = inheritedParent != null ? inheritedParent.getEffectiveTrust() : null;
+        EffectiveTrust trust = this.effectiveTrust;
+        if (trust == null || !trust.isValid(this.claimData, parentTrust)) {
+            trust = new EffectiveTrust(this.claimData, parentTrust);
+            this.effectiveTrust = trust;
         }
 
-        if (this.parent != null) {
-            return this.parent.isUserTrusted(user, type, contexts);
+        return trust;
+    }
+
+    @Nullable
+    private GPClaim getInheritedParent() {
+        if (this.parent != null && this.getData() != null && this.getData().doesInheritParent()) {
+            return this.parent;
         }
 
-        return false;
+        return null;
     }
 
     @Override
@@ -2656,8 +2611,7 @@ public boolean migrateClaims(List<Claim> claims) {
             }
 
             try {
-                Files.createDirectories(newPath.getParent());
-                Files.move(childClaim.getClaimStorage().filePath, newPath);
+                GriefPreventionPlugin.instance.dataStore.moveClaimStorage(childClaim.getClaimStorage().filePath, newPath);
                 childClaim.setClaimStorage(new ClaimStorageData(newPath, this.getWorldUniqueId(), (ClaimDataConfig) childClaim.getInternalClaimData()));
                 childClaim.getClaimStorage().save();
             } catch (IOException e) {
@@ -2665,6 +2619,7 @@ public boolean migrateClaims(List<Claim> claims) {
                 return false;
             }
 
+            childClaim.updateOwnerClaimBlocks();
             final GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(this.world.getProperties());
             if (!this.isWilderness()) {
                 claimWorldManager.removeClaimData(childClaim);
@@ -2706,6 +2661,7 @@ public CompletableFuture<FlagResult> clearPermissions(Subject subject, Cause cau
         contexts.add(this.getContext());
         contexts.add(this.world.getContext());
         subject.getSubjectData().clearPermissions(contexts);
+        GPPermissionHandler.invalidateDecisionCache();
         result.complete(new GPFlagResult(FlagResultType.SUCCESS));
         return result;
     }
@@ -2729,6 +2685,7 @@ public CompletableFuture<FlagResult> clearPermissions(Subject subject, Context c
 
         contexts.add(this.world.getContext());
         subject.getSubjectData().clearPermissions(contexts);
+        GPPermissionHandler.invalidateDecisionCache();
         result.complete(new GPFlagResult(FlagResultType.SUCCESS));
         return result;
     }
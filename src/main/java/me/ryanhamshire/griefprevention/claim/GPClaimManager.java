@@ -25,10 +25,14 @@
 package me.ryanhamshire.griefprevention.claim;
 
 import com.flowpowered.math.vector.Vector3i;
+import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Maps;
-import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import com.google.common.collect.SetMultimap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GPTimings;
@@ -43,7 +47,6 @@
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
 import me.ryanhamshire.griefprevention.event.GPDeleteClaimEvent;
-import net.minecraft.util.math.ChunkPos;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.entity.living.player.Player;
 import org.spongepowered.api.event.cause.Cause;
@@ -59,7 +62,8 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -74,14 +78,18 @@ public class GPClaimManager implements ClaimManager {
     private WorldProperties worldProperties;
     private GriefPreventionConfig<?> activeConfig;
 
-    // Player UUID -> player data
+    // Player UUID -> player data of online players
     private Map<UUID, GPPlayerData> playerDataList = Maps.newHashMap();
+    // Player UUID -> player data of offline players, loaded on demand
+    private final Cache<UUID, GPPlayerData> offlinePlayerData = DataStore.createOfflinePlayerDataCache();
     // World claim list
     private List<Claim> worldClaims = new ArrayList<>();
     // Claim UUID -> Claim
     private Map<UUID, Claim> claimUniqueIdMap = Maps.newHashMap();
-    // String -> Claim
-    private Map<Long, Set<Claim>> chunksToClaimsMap = new Long2ObjectOpenHashMap<>(4096);
+    // Owner UUID -> claims counted as the owner's claims
+    private final SetMultimap<UUID, Claim> ownerClaims = LinkedHashMultimap.create();
+    // Chunk hash -> Claims, spatial index of all claims including children
+    private final ClaimIndex claimIndex = new ClaimIndex();
     private GPClaim theWildernessClaim;
 
     public GPClaimManager() {
@@ -95,73 +103,140 @@ public GPClaimManager(WorldProperties worldProperties) {
     }
 
     public GPPlayerData getOrCreatePlayerData(UUID playerUniqueId) {
+        // resident data is the common case, the online lookup is only needed when it isn't there
+        final GPPlayerData playerData = this.getPlayerDataMap().get(playerUniqueId);
+        if (playerData != null) {
+            return playerData;
+        }
+        return this.getOrCreatePlayerData(playerUniqueId, Sponge.getServer().getPlayer(playerUniqueId).isPresent());
+    }
+
+    // Online players are kept until they quit, offline players go to the bounded offline cache
+    public GPPlayerData getOrCreatePlayerData(UUID playerUniqueId, boolean online) {
         GPPlayerData playerData = this.getPlayerDataMap().get(playerUniqueId);
+        if (playerData != null) {
+            return playerData;
+        }
+
+        playerData = this.getOfflinePlayerDataCache().getIfPresent(playerUniqueId);
         if (playerData == null) {
-            return createPlayerData(playerUniqueId);
-        } else {
+            return this.createPlayerData(playerUniqueId, online);
+        }
+        if (online) {
+            this.getOfflinePlayerDataCache().invalidate(playerUniqueId);
+            this.getPlayerDataMap().put(playerUniqueId, playerData);
+        }
+        return playerData;
+    }
+
+    // Returns player data already in memory without loading it
+    @Nullable
+    public GPPlayerData getPlayerData(UUID playerUniqueId) {
+        final GPPlayerData playerData = this.getPlayerDataMap().get(playerUniqueId);
+        if (playerData != null) {
             return playerData;
         }
+        return this.getOfflinePlayerDataCache().getIfPresent(playerUniqueId);
     }
 
-    private GPPlayerData createPlayerData(UUID playerUniqueId) {
-        Path playerFilePath = null;
-        if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
-            playerFilePath = DataStore.globalPlayerDataPath.resolve(playerUniqueId.toString());
-        } else {
-            playerFilePath = DataStore.worldConfigMap.get(this.worldProperties.getUniqueId()).getPath().getParent().resolve("PlayerData").resolve(playerUniqueId.toString());
+    // Returns player data from memory, or loads it if the player has stored data
+    @Nullable
+    public GPPlayerData getOrLoadPlayerData(UUID playerUniqueId) {
+        final GPPlayerData playerData = this.getPlayerData(playerUniqueId);
+        if (playerData != null || Files.notExists(this.getPlayerFilePath(playerUniqueId))) {
+            return playerData;
         }
+        return this.getOrCreatePlayerData(playerUniqueId);
+    }
 
-        PlayerStorageData playerStorage = new PlayerStorageData(playerFilePath);
+    private GPPlayerData createPlayerData(UUID playerUniqueId, boolean online) {
+        PlayerStorageData playerStorage = new PlayerStorageData(this.getPlayerFilePath(playerUniqueId));
         List<Claim> claimList = this.createPlayerClaimList(playerUniqueId);
         GPPlayerData playerData = new GPPlayerData(this.worldProperties, playerUniqueId, playerStorage, this.activeConfig, claimList);
-        this.getPlayerDataMap().put(playerUniqueId, playerData);
+        this.migrateClaimBlocks(playerData);
+        if (online) {
+            this.getPlayerDataMap().put(playerUniqueId, playerData);
+        } else {
+            this.getOfflinePlayerDataCache().put(playerUniqueId, playerData);
+        }
         return playerData;
     }
 
+    private Path getPlayerFilePath(UUID playerUniqueId) {
+        if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
+            return DataStore.globalPlayerDataPath.resolve(playerUniqueId.toString());
+        }
+        return DataStore.worldConfigMap.get(this.worldProperties.getUniqueId()).getPath().getParent().resolve("PlayerData").resolve(playerUniqueId.toString());
+    }
+
+    // migrate playerdata to new claim block system
+    private void migrateClaimBlocks(GPPlayerData playerData) {
+        final int migrationRate = GriefPreventionPlugin.getGlobalConfig().getConfig().playerdata.migrationRate;
+        if (migrationRate <= -1) {
+            return;
+        }
+
+        final PlayerStorageData playerStorage = playerData.getStorageData();
+        if (!playerStorage.getConfig().hasMigratedBlocks()) {
+            final int accruedBlocks = playerStorage.getConfig().getAccruedClaimBlocks();
+            int newAccruedBlocks = accruedBlocks * migrationRate;
+            if (newAccruedBlocks > playerData.optionMaxAccruedBlocks) {
+                newAccruedBlocks = playerData.optionMaxAccruedBlocks;
+            }
+            playerStorage.getConfig().setAccruedClaimBlocks(accruedBlocks * migrationRate);
+            playerStorage.getConfig().setMigratedBlocks(true);
+            playerStorage.save();
+        }
+    }
+
     private List<Claim> createPlayerClaimList(UUID playerUniqueId) {
         List<Claim> claimList = new ArrayList<>();
         if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
             for (World world : Sponge.getServer().getWorlds()) {
                 GPClaimManager claimmanager = DATASTORE.getClaimWorldManager(world.getProperties());
-                for (Claim claim : claimmanager.worldClaims) {
-                    GPClaim gpClaim = (GPClaim) claim;
-                    if (gpClaim.isAdminClaim()) {
-                        continue;
-                    }
-                    if (gpClaim.parent != null) {
-                       if (gpClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                           claimList.add(claim);
-                       }
-                    } else {
-                        if (gpClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                            claimList.add(claim);
-                        }
-                    }
+                if (claimmanager != null) {
+                    claimList.addAll(claimmanager.ownerClaims.get(playerUniqueId));
                 }
             }
         } else {
-            for (Claim claim : this.worldClaims) {
-                GPClaim gpClaim = (GPClaim) claim;
-                if (gpClaim.isAdminClaim()) {
-                    continue;
-                }
-                if (gpClaim.parent != null) {
-                   if (gpClaim.parent.getOwnerUniqueId().equals(playerUniqueId)) {
-                       claimList.add(claim);
-                   }
-                } else {
-                    if (gpClaim.getOwnerUniqueId().equals(playerUniqueId)) {
-                        claimList.add(claim);
-                    }
-                }
-            }
+            claimList.addAll(this.ownerClaims.get(playerUniqueId));
         }
 
         return claimList;
     }
 
+    // Top level claims and claims in someone else's town count as the owner's claims, admin claims never do
+    private static boolean isOwnerClaim(GPClaim claim) {
+        if (claim.isAdminClaim() || claim.isWilderness()) {
+            return false;
+        }
+        if (claim.parent == null) {
+            return true;
+        }
+        return claim.isInTown() && !claim.getTownClaim().getOwnerUniqueId().equals(claim.getOwnerUniqueId());
+    }
+
+    // Must be called before the claim's owner or type changes, equality depends on the type
+    void removeOwnerClaim(GPClaim claim) {
+        this.ownerClaims.remove(claim.getOwnerUniqueId(), claim);
+    }
+
+    void addOwnerClaim(GPClaim claim) {
+        if (isOwnerClaim(claim)) {
+            this.ownerClaims.put(claim.getOwnerUniqueId(), claim);
+        }
+    }
+
+    public List<Claim> getOwnerClaims(UUID ownerUniqueId) {
+        return new ArrayList<>(this.ownerClaims.get(ownerUniqueId));
+    }
+
+    // Moves the player's data to the offline cache, it is dropped from memory once evicted
     public void removePlayer(UUID playerUniqueId) {
-        this.getPlayerDataMap().remove(playerUniqueId);
+        final GPPlayerData playerData = this.getPlayerDataMap().remove(playerUniqueId);
+        if (playerData != null) {
+            this.getOfflinePlayerDataCache().put(playerUniqueId, playerData);
+        }
     }
 
     public ClaimResult addClaim(Claim claim, Cause cause) {
@@ -211,12 +286,12 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
         if (claim.parent != null) {
             claim.parent.children.add(claimToAdd);
             this.worldClaims.remove(claim);
-            this.deleteChunkHashes((GPClaim) claim);
-            if (!claim.isAdminClaim() && claim.isInTown() && !claim.getTownClaim().getOwnerUniqueId().equals(claim.getOwnerUniqueId())) {
-                final GPPlayerData playerData = this.getPlayerDataMap().get(claim.getOwnerUniqueId());
-                List<Claim> playerClaims = playerData.getInternalClaims();
-                if (!playerClaims.contains(claim)) {
-                    playerClaims.add(claim);
+            this.claimIndex.addTree(claim);
+            if (isOwnerClaim(claim)) {
+                this.ownerClaims.put(claim.getOwnerUniqueId(), claim);
+                final GPPlayerData playerData = this.getPlayerData(claim.getOwnerUniqueId());
+                if (playerData != null) {
+                    playerData.addClaim(claim);
                 }
             }
             return;
@@ -226,14 +301,11 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
             this.worldClaims.add(claim);
         }
         final UUID ownerId = claim.getOwnerUniqueId();
-        final GPPlayerData playerData = this.getPlayerDataMap().get(ownerId);
+        this.addOwnerClaim(claim);
+        // player data of owners not in memory builds its claim list when loaded
+        final GPPlayerData playerData = this.getPlayerData(ownerId);
         if (playerData != null) {
-            List<Claim> playerClaims = playerData.getInternalClaims();
-            if (!playerClaims.contains(claim)) {
-                playerClaims.add(claim);
-            }
-        } else if (!claim.isAdminClaim()) {
-            this.createPlayerData(ownerId);
+            playerData.addClaim(claim);
         }
 
         this.updateChunkHashes(claim);
@@ -241,23 +313,16 @@ public void addClaim(Claim claimToAdd, boolean writeToStorage) {
     }
 
     public void updateChunkHashes(GPClaim claim) {
-        this.deleteChunkHashes(claim);
-        Set<Long> chunkHashes = claim.getChunkHashes(true);
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk == null) {
-                claimsInChunk = new HashSet<Claim>();
-                this.getInternalChunksToClaimsMap().put(chunkHash, claimsInChunk);
-            }
-
-            claimsInChunk.add(claim);
-        }
+        this.claimIndex.addTree(claim);
     }
 
     // Used when parent claims becomes children
     public void removeClaimData(Claim claim) {
         this.worldClaims.remove(claim);
-        this.deleteChunkHashes((GPClaim) claim);
+        this.removeOwnerClaim((GPClaim) claim);
+        this.addOwnerClaim((GPClaim) claim);
+        // claim is still in world but now at a deeper level
+        this.claimIndex.addTree((GPClaim) claim);
     }
 
     @Override
@@ -288,14 +353,16 @@ public void deleteClaim(Claim claim, boolean deleteChildren) {
             GPClaim childClaim = (GPClaim) child;
             ((GPClaim) claim).children.remove(childClaim);
             childClaim.parent = gpClaim.parent;
+            childClaim.updateOwnerClaimBlocks();
             String fileName = childClaim.getClaimStorage().filePath.getFileName().toString();
             final Path newPath = gpClaim.getClaimStorage().filePath.getParent().getParent().resolve(childClaim.getType().name().toLowerCase()).resolve(fileName);
             try {
-                Files.createDirectories(newPath.getParent());
-                Files.move(childClaim.getClaimStorage().filePath, newPath);
+                DATASTORE.moveClaimStorage(childClaim.getClaimStorage().filePath, newPath);
                 childClaim.setClaimStorage(new ClaimStorageData(newPath, this.getWorldProperties().getUniqueId(), (ClaimDataConfig) childClaim.getInternalClaimData()));
                 if (childClaim.parent == null) {
                     this.addClaim(childClaim, false);
+                } else {
+                    this.claimIndex.addTree(childClaim);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -303,9 +370,9 @@ public void deleteClaim(Claim claim, boolean deleteChildren) {
         }
 
         // player may be offline so check is needed
-        GPPlayerData playerData = this.getPlayerDataMap().get(claim.getOwnerUniqueId());
+        GPPlayerData playerData = this.getPlayerData(claim.getOwnerUniqueId());
         if (playerData != null) {
-            playerData.getInternalClaims().remove(claim);
+            playerData.removeClaim(claim);
         }
         // transfer bank balance to owner
         final Account bankAccount = claim.getEconomyAccount().orElse(null);
@@ -319,7 +386,8 @@ public void deleteClaim(Claim claim, boolean deleteChildren) {
         }
         this.worldClaims.remove(claim);
         this.claimUniqueIdMap.remove(claim.getUniqueId());
-        this.deleteChunkHashes((GPClaim) claim);
+        this.removeOwnerClaim(gpClaim);
+        this.claimIndex.remove(gpClaim);
         if (gpClaim.parent != null) {
             gpClaim.parent.children.remove(claim);
         }
@@ -340,35 +408,23 @@ public void deleteClaim(Claim claim, boolean deleteChildren) {
         DATASTORE.deleteClaimFromSecondaryStorage((GPClaim) claim);
     }
 
-    private void deleteChunkHashes(GPClaim claim) {
-        Set<Long> chunkHashes = claim.getChunkHashes(false);
-        if (chunkHashes == null) {
-            return;
-        }
-
-        for (Long chunkHash : chunkHashes) {
-            Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(chunkHash);
-            if (claimsInChunk != null) {
-                claimsInChunk.remove(claim);
-            }
-        }
-    }
-
     @Nullable
     public Optional<Claim> getClaimByUUID(UUID claimUniqueId) {
         return Optional.ofNullable(this.claimUniqueIdMap.get(claimUniqueId));
     }
 
     public List<Claim> getInternalPlayerClaims(UUID playerUniqueId) {
-        return this.getPlayerDataMap().get(playerUniqueId).getInternalClaims();
+        return this.getOrCreatePlayerData(playerUniqueId).getInternalClaims();
     }
 
     @Nullable
     public List<Claim> getPlayerClaims(UUID playerUniqueId) {
-        if (this.getPlayerDataMap().get(playerUniqueId) == null) {
-            return ImmutableList.of();
+        final GPPlayerData playerData = this.getPlayerData(playerUniqueId);
+        if (playerData == null) {
+            // avoid loading player data just to list claims
+            return ImmutableList.copyOf(this.createPlayerClaimList(playerUniqueId));
         }
-        return ImmutableList.copyOf(this.getPlayerDataMap().get(playerUniqueId).getInternalClaims());
+        return ImmutableList.copyOf(playerData.getInternalClaims());
     }
 
     public void createWildernessClaim(WorldProperties worldProperties) {
@@ -393,6 +449,11 @@ public List<Claim> getWorldClaims() {
         return this.worldClaims;
     }
 
+    // every claim of the world including subdivisions and the wilderness
+    public Collection<Claim> getAllClaims() {
+        return Collections.unmodifiableCollection(this.claimUniqueIdMap.values());
+    }
+
     public Map<UUID, GPPlayerData> getPlayerDataMap() {
         if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
             return DataStore.GLOBAL_PLAYER_DATA;
@@ -400,13 +461,41 @@ public Map<UUID, GPPlayerData> getPlayerDataMap() {
         return this.playerDataList;
     }
 
+    public Cache<UUID, GPPlayerData> getOfflinePlayerDataCache() {
+        if (DataStore.USE_GLOBAL_PLAYER_STORAGE) {
+            return DataStore.GLOBAL_OFFLINE_PLAYER_DATA;
+        }
+        return this.offlinePlayerData;
+    }
+
+    // online and cached offline player data
+    public List<GPPlayerData> getResidentPlayerData() {
+        final List<GPPlayerData> playerDataList = new ArrayList<>(this.getPlayerDataMap().values());
+        playerDataList.addAll(this.getOfflinePlayerDataCache().asMap().values());
+        return playerDataList;
+    }
+
     @Override
     public Map<Long, Set<Claim>> getChunksToClaimsMap() {
-        return ImmutableMap.copyOf(this.chunksToClaimsMap);
+        ImmutableMap.Builder<Long, Set<Claim>> builder = ImmutableMap.builder();
+        for (Long2ObjectMap.Entry<GPClaim[]> entry : this.claimIndex.getChunksToClaims().long2ObjectEntrySet()) {
+            ImmutableSet.Builder<Claim> claimsInChunk = ImmutableSet.builder();
+            boolean hasTopLevelClaim = false;
+            for (GPClaim claim : entry.getValue()) {
+                if (claim.parent == null) {
+                    claimsInChunk.add(claim);
+                    hasTopLevelClaim = true;
+                }
+            }
+            if (hasTopLevelClaim) {
+                builder.put(entry.getLongKey(), claimsInChunk.build());
+            }
+        }
+        return builder.build();
     }
 
-    public Map<Long, Set<Claim>> getInternalChunksToClaimsMap() {
-        return this.chunksToClaimsMap;
+    public ClaimIndex getClaimIndex() {
+        return this.claimIndex;
     }
 
     public void save() {
@@ -419,16 +508,25 @@ public void save() {
             }
         }
 
-        for (GPPlayerData playerData : this.getPlayerDataMap().values()) {
+        for (GPPlayerData playerData : this.getResidentPlayerData()) {
             playerData.getStorageData().save();
         }
+        this.getOfflinePlayerDataCache().cleanUp();
+
+        ClaimStorageData.WRITER.retryFailedWrites();
+        DATASTORE.writeClaimSnapshot(this);
     }
 
     public void unload() {
         this.playerDataList.clear();
+        for (GPPlayerData playerData : this.offlinePlayerData.asMap().values()) {
+            playerData.getStorageData().save();
+        }
+        this.offlinePlayerData.invalidateAll();
         this.worldClaims.clear();
         this.claimUniqueIdMap.clear();
-        this.chunksToClaimsMap.clear();
+        this.ownerClaims.clear();
+        this.claimIndex.clear();
         if (this.theWildernessClaim != null) {
             this.theWildernessClaim.unload();
             this.theWildernessClaim = null;
@@ -437,7 +535,51 @@ public void unload() {
     }
 
     public Claim getClaimAtPlayer(GPPlayerData playerData, Location<World> location, boolean ignoreHeight) {
-        return this.getClaimAt(location, ignoreHeight, (GPClaim) playerData.lastClaim.get());
+        final ClaimCursor cursor = this.getClaimCursor(location, ignoreHeight, playerData.claimCursor);
+        playerData.claimCursor = cursor;
+        return cursor.getClaim();
+    }
+
+    // Returns a cursor resolving the claim at location, reusing cursor if location is still within its region
+    // Callers should keep the returned cursor and pass it back on their next lookup
+    public ClaimCursor getClaimCursor(Location<World> location, boolean ignoreHeight, @Nullable ClaimCursor cursor) {
+        if (cursor != null && cursor.contains(this.claimIndex, location.getBlockX(), location.getBlockY(), location.getBlockZ(), ignoreHeight)) {
+            return cursor;
+        }
+
+        GPTimings.CLAIM_GETCLAIM.startTimingIfSync();
+        final ClaimCursor newCursor = this.claimIndex.createCursor(location, ignoreHeight, this.getWildernessClaim());
+        GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
+        return newCursor;
+    }
+
+    // Returns the largest radius, up to maxRadius, of a square around location that a new claim could cover
+    // without overlapping an existing one, or -1 if location is inside a claim
+    public int getFreeRadius(Location<World> location, int maxRadius) {
+        return this.claimIndex.getFreeRadius(location.getBlockX(), location.getBlockZ(), maxRadius);
+    }
+
+    // Returns a cursor resolving every block within radius of location, or null if a claim boundary passes through that area
+    // The passed cursor is returned as is when it already covers the area
+    @Nullable
+    public ClaimCursor getAreaCursor(Location<World> location, int radius, boolean ignoreHeight, @Nullable ClaimCursor cursor) {
+        final int x = location.getBlockX();
+        final int y = location.getBlockY();
+        final int z = location.getBlockZ();
+        if (cursor != null && cursor.contains(this.claimIndex, x, y, z, radius, ignoreHeight)) {
+            return cursor;
+        }
+
+        return this.getRegionCursor(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, ignoreHeight);
+    }
+
+    // Returns a cursor resolving every block in the region, or null if the region crosses a claim boundary
+    @Nullable
+    public ClaimCursor getRegionCursor(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, boolean ignoreHeight) {
+        GPTimings.CLAIM_GETCLAIM.startTimingIfSync();
+        final ClaimCursor cursor = this.claimIndex.createRegionCursor(minX, minY, minZ, maxX, maxY, maxZ, ignoreHeight, this.getWildernessClaim());
+        GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
+        return cursor;
     }
 
     @Override
@@ -455,50 +597,14 @@ public Claim getClaimAt(Location<World> location, boolean ignoreHeight,  GPClaim
             return cachedClaim;
         }
 
-        Set<Claim> claimsInChunk = this.getInternalChunksToClaimsMap().get(ChunkPos.chunkXZ2Int(location.getBlockX() >> 4, location.getBlockZ() >> 4));
-        if (claimsInChunk == null) {
-            GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
+        final GPClaim claim = this.claimIndex.getClaimAt(location, ignoreHeight);
+        GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
+        if (claim == null) {
+            // if no claim found, return the world claim
             return this.getWildernessClaim();
         }
 
-        // TODO change to check deepest level and work its way up to root
-        for (Claim claim : claimsInChunk) {
-            final GPClaim gpClaim = (GPClaim) claim;
-            if (gpClaim.contains(location, gpClaim.isCuboid() ? false : ignoreHeight, false)) {
-                // when we find a top level claim, if the location is in one of its children,
-                // return the child claim, not the top level claim
-                for (int i = 0; i < gpClaim.children.size(); i++) {
-                    GPClaim child = (GPClaim) gpClaim.children.get(i);
-                    // check if child has children (Town -> Basic -> Subdivision)
-                    for (int j = 0; j < child.children.size(); j++) {
-                        GPClaim innerChild = (GPClaim) child.children.get(j);
-                        for (int k = 0; k < innerChild.children.size(); k++) {
-                            Claim subChild = innerChild.children.get(k);
-                            if (subChild.contains(location, subChild.isCuboid() ? false : ignoreHeight, false)) {
-                                GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-                                return subChild;
-                            }
-                        }
-
-                        if (innerChild.contains(location, innerChild.isCuboid() ? false : ignoreHeight, false)) {
-                            GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-                            return innerChild;
-                        }
-                    }
-                    if (child.contains(location, child.isCuboid() ? false : ignoreHeight, false)) {
-                        GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-                        return child;
-                    }
-                }
-
-                GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-                return gpClaim;
-            }
-        }
-
-        GPTimings.CLAIM_GETCLAIM.stopTimingIfSync();
-        // if no claim found, return the world claim
-        return this.getWildernessClaim();
+        return claim;
     }
 
     @Override
@@ -604,6 +604,7 @@ private static Consumer<CommandSource> createClaimInfoConsumer(CommandSource src
                 case REQUIRES_CLAIM_BLOCKS :
                     boolean requiresClaimBlocks = gpClaim.getInternalClaimData().requiresClaimBlocks();
                     gpClaim.getInternalClaimData().setRequiresClaimBlocks(!requiresClaimBlocks);
+                    gpClaim.updateOwnerClaimBlocks();
                     gpClaim.getInternalClaimData().setRequiresSave(true);
                     gpClaim.getClaimStorage().save();
                     break;
@@ -25,7 +25,6 @@
  */
 package me.ryanhamshire.griefprevention.command;
 
-import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.Claim;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
@@ -127,11 +126,9 @@ private void showClaimList(CommandSource src, User user, ClaimType type, WorldPr
                 continue;
             }
             final GPClaimManager claimWorldManager = GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(world.getProperties());
-            // load the target player's data
-            final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(world, user.getUniqueId());
             List<Claim> claimList = null;
             if (this.displayOwned) {
-                claimList = playerData.getClaims();
+                claimList = claimWorldManager.getOwnerClaims(user.getUniqueId());
             } else {
                 claimList = claimWorldManager.getWorldClaims();
             }
@@ -198,12 +195,6 @@ private void showClaimList(CommandSource src, User user, ClaimType type, WorldPr
         PaginationList.Builder paginationBuilder = paginationService.builder()
                 .title(claimListHead).padding(Text.of(TextStyles.STRIKETHROUGH, "-")).contents(claimsTextList);
         paginationBuilder.sendTo(src);
-
-        // drop the data we just loaded, if the player isn't online
-        // TODO : add task to unload data
-        //if (!user.isOnline()) {
-        //    GriefPreventionPlugin.instance.dataStore.clearCachedPlayerData(worldProperties, user.getUniqueId());
-        //}
     }
 
     private Consumer<CommandSource> createClaimListConsumer(CommandSource src, User user, String type, WorldProperties worldProperties) {
@@ -42,36 +42,43 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         User user = ctx.<User>getOne("user").orElse(null);
         GPDebugData debugData = null;
         boolean paste = false;
+        boolean save = false;
         if (target.equalsIgnoreCase("on")) {
             debugData = getOrCreateDebugUser(src, user, true);
         } else if (target.equalsIgnoreCase("record")) {
             debugData = getOrCreateDebugUser(src, user, false);
         } else if (target.equalsIgnoreCase("paste")) {
             paste = true;
+        } else if (target.equalsIgnoreCase("save")) {
+            save = true;
         } else if (target.equalsIgnoreCase("off")) {
-            GriefPreventionPlugin.instance.getDebugUserMap().remove(src.getIdentifier());
+            GriefPreventionPlugin.instance.removeDebugUser(src.getIdentifier());
             GriefPreventionPlugin.debugLogging = false;
         }
 
         final Text GP_TEXT = Text.of(TextColors.RESET, "[", TextColors.AQUA, "GP", TextColors.WHITE, "] ");
         if (debugData == null) {
-            if (paste) {
+            if (paste || save) {
                 debugData = GriefPreventionPlugin.instance.getDebugUserMap().get(src.getIdentifier());
                 if (debugData == null) {
                     src.sendMessage(Text.of(TextColors.RED, "Nothing to paste!"));
                     return CommandResult.success();
                 }
-                debugData.pasteRecords();
+                if (save) {
+                    debugData.saveRecords(GriefPreventionPlugin.instance.getConfigPath().resolve("debug"));
+                } else {
+                    debugData.pasteRecords();
+                }
             }
             src.sendMessage(Text.of(GP_TEXT, TextColors.GRAY, "Debug ", TextColors.RED, "OFF"));
-            GriefPreventionPlugin.instance.getDebugUserMap().remove(src.getIdentifier());
+            GriefPreventionPlugin.instance.removeDebugUser(src.getIdentifier());
         } else {
             src.sendMessage(Text.of(
                     GP_TEXT, TextColors.GRAY, "Debug: ", TextColors.GREEN, "ON", TextColors.WHITE, " | ", 
                     TextColors.GRAY, "Verbose: ", !debugData.isRecording() ? Text.of(TextColors.GREEN, "ON") : Text.of(TextColors.RED, "OFF"), " | ",
                     TextColors.GRAY, "Record: ", debugData.isRecording() ? Text.of(TextColors.GREEN, "ON") : Text.of(TextColors.RED, "OFF"), " | ",
                     TextColors.GRAY, "User: ", TextColors.GOLD, user == null ? "ALL" : user.getName()));
-            GriefPreventionPlugin.instance.getDebugUserMap().put(src.getIdentifier(), debugData);
+            GriefPreventionPlugin.instance.addDebugUser(src.getIdentifier(), debugData);
         }
 
         return CommandResult.success();
@@ -81,7 +88,7 @@ private GPDebugData getOrCreateDebugUser(CommandSource src, User user, boolean v
         GPDebugData debugData = GriefPreventionPlugin.instance.getDebugUserMap().get(src.getIdentifier());
         if (debugData == null) {
             debugData = new GPDebugData(src, user, verbose);
-            GriefPreventionPlugin.instance.getDebugUserMap().put(src.getIdentifier(), debugData);
+            GriefPreventionPlugin.instance.addDebugUser(src.getIdentifier(), debugData);
         } else {
             debugData.setTarget(user);
             debugData.setVerbose(verbose);
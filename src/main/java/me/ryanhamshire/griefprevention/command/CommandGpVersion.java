@@ -24,8 +24,14 @@
  */
 package me.ryanhamshire.griefprevention.command;
 
+import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageData;
+import me.ryanhamshire.griefprevention.configuration.ClaimStorageWriter;
+import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
+import me.ryanhamshire.griefprevention.permission.PermissionDecisionCache;
+import me.ryanhamshire.griefprevention.util.UserCache;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.Platform.Component;
 import org.spongepowered.api.command.CommandResult;
@@ -54,7 +60,25 @@ public CommandResult execute(CommandSource src, CommandContext ctx) {
         String permissionPlugin = Sponge.getServiceManager().getRegistration(PermissionService.class).get().getPlugin().getId();
         String permissionVersion = Sponge.getServiceManager().getRegistration(PermissionService.class).get().getPlugin().getVersion().orElse("unknown");
         Text permVersion = Text.of(GriefPreventionPlugin.GP_TEXT, "Running ", TextColors.GREEN, permissionPlugin, " ", permissionVersion);
-        src.sendMessage(Text.of(gpVersion, "\n", spongeVersion, "\n", permVersion));
+        final DataStore dataStore = GriefPreventionPlugin.instance.dataStore;
+        Text playerData = Text.of(GriefPreventionPlugin.GP_TEXT, "Player data ", TextColors.AQUA, dataStore.getOnlinePlayerDataCount(), TextColors.RESET, " online, ",
+                TextColors.AQUA, dataStore.getOfflinePlayerDataCount(), TextColors.RESET, " offline, ", TextColors.AQUA, dataStore.getEvictedPlayerDataCount(),
+                TextColors.RESET, " evicted");
+        final UserCache userCache = GriefPreventionPlugin.instance.userCache;
+        Text userCacheStats = Text.of(GriefPreventionPlugin.GP_TEXT, "User cache ", TextColors.AQUA, userCache.getSize(), TextColors.RESET, " users, ",
+                TextColors.AQUA, String.format("%.1f%%", userCache.getHitRate() * 100), TextColors.RESET, " hit rate, ", TextColors.AQUA, userCache.getMissCount(),
+                TextColors.RESET, " storage lookups");
+        final PermissionDecisionCache decisionCache = GPPermissionHandler.getDecisionCache();
+        Text decisionCacheStats = Text.of(GriefPreventionPlugin.GP_TEXT, "Permission decisions ", TextColors.AQUA, String.format("%.1f%%", decisionCache.getHitRate() * 100),
+                TextColors.RESET, " hit rate, ", TextColors.AQUA, decisionCache.getHits(), TextColors.RESET, " hits, ", TextColors.AQUA, decisionCache.getMisses(),
+                TextColors.RESET, " misses");
+        Text message = Text.of(gpVersion, "\n", spongeVersion, "\n", permVersion, "\n", playerData, "\n", userCacheStats, "\n", decisionCacheStats);
+        if (dataStore.usesClaimFiles()) {
+            final ClaimStorageWriter claimWriter = ClaimStorageData.WRITER;
+            message = Text.of(message, "\n", GriefPreventionPlugin.GP_TEXT, "Claim writes ", TextColors.AQUA, claimWriter.getPendingCount(), TextColors.RESET,
+                    " pending, ", TextColors.AQUA, claimWriter.getCoalescedWrites(), TextColors.RESET, " coalesced");
+        }
+        src.sendMessage(message);
         return CommandResult.success();
     }
 }
@@ -52,6 +52,7 @@
 import me.ryanhamshire.griefprevention.event.GPUserTrustClaimEvent;
 import me.ryanhamshire.griefprevention.permission.GPOptionHandler;
 import me.ryanhamshire.griefprevention.permission.GPOptions;
+import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.util.TaskUtils;
 import me.ryanhamshire.griefprevention.visual.Visualization;
@@ -462,6 +463,7 @@ public static FlagResult applyFlagPermission(CommandSource src, Subject subject,
             }
 
             GriefPreventionPlugin.GLOBAL_SUBJECT.getSubjectData().setPermission(contexts, flagPermission, value);
+            GPPermissionHandler.invalidateDecisionCache();
             if (!clicked) {
                 src.sendMessage(Text.of(
                     Text.builder().append(Text.of(
@@ -480,6 +482,7 @@ public static FlagResult applyFlagPermission(CommandSource src, Subject subject,
             }
 
             subject.getSubjectData().setPermission(contexts, flagPermission, value);
+            GPPermissionHandler.invalidateDecisionCache();
             if (!clicked) {
                 src.sendMessage(Text.of(
                         Text.builder().append(Text.of(
@@ -520,6 +523,7 @@ public static Consumer<CommandSource> createFlagConsumer(CommandSource src, Subj
             String target = flagPermission.replace(GPPermissions.FLAG_BASE + ".",  "");
             Set<Context> newContexts = new HashSet<>(contexts);
             subject.getSubjectData().setPermission(newContexts, flagPermission, newValue);
+            GPPermissionHandler.invalidateDecisionCache();
             src.sendMessage(Text.of(
                     TextColors.GREEN, "Set permission of ", 
                     TextColors.AQUA, target, 
@@ -1131,7 +1135,7 @@ public static void handleBankTransaction(CommandSource src, CommandContext args,
 
         final String command = args.<String>getOne("command").orElse(null);
         final double amount = args.<Double>getOne("amount").get();
-        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getPlayerData(claim.getWorld(), claim.getOwnerUniqueId());
+        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(claim.getWorld(), claim.getOwnerUniqueId());
         if (playerData.canIgnoreClaim(claim) || claim.getOwnerUniqueId().equals(playerData.playerID) || claim.getUserTrusts(TrustType.MANAGER).contains(playerData.playerID)) {
             final UniqueAccount playerAccount = economyService.getOrCreateAccount(playerData.playerID).get();
             if (command.equalsIgnoreCase("withdraw")) {
@@ -1199,7 +1203,7 @@ public static void displayClaimBankInfo(CommandSource src, GPClaim claim, boolea
             return;
         }
 
-        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getPlayerData(claim.getWorld(), claim.getOwnerUniqueId());
+        final GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(claim.getWorld(), claim.getOwnerUniqueId());
         final double claimBalance = bankAccount.getBalance(economyService.getDefaultCurrency()).doubleValue();
         double taxOwed = -1;
         final double playerTaxRate = GPOptionHandler.getClaimOptionDouble(playerData.getPlayerSubject(), claim, GPOptions.Type.TAX_RATE, playerData);
@@ -26,10 +26,13 @@
 
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Maps;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.api.data.EconomyData;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.configuration.category.ConfigCategory;
+import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
 import ninja.leaping.configurate.objectmapping.Setting;
 import ninja.leaping.configurate.objectmapping.serialize.ConfigSerializable;
@@ -37,12 +40,18 @@
 import org.spongepowered.api.util.Tristate;
 
 import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 @ConfigSerializable
 public class ClaimDataConfig extends ConfigCategory implements IClaimData {
@@ -52,6 +61,12 @@ public class ClaimDataConfig extends ConfigCategory implements IClaimData {
     private Vector3i greaterPos;
     private Vector3i spawnPos;
     private ClaimStorageData claimStorage;
+    // UUID -> trust types granted, including types implied by a higher trust
+    // Rebuilt on demand after any trust list changes
+    private Map<UUID, EnumSet<TrustType>> trustIndex = null;
+    private boolean publicTrust = false;
+    // Incremented whenever trusts or trust inheritance change
+    private int trustVersion = 0;
 
     @Setting
     private UUID parent;
@@ -309,21 +324,85 @@ public Vector3i getGreaterBoundaryCornerPos() {
     }
 
     public List<UUID> getAccessors() {
+        if (!(this.accessors instanceof TrustList)) {
+            this.accessors = new TrustList(this, this.accessors);
+        }
         return this.accessors;
     }
 
     public List<UUID> getBuilders() {
+        if (!(this.builders instanceof TrustList)) {
+            this.builders = new TrustList(this, this.builders);
+        }
         return this.builders;
     }
 
     public List<UUID> getContainers() {
+        if (!(this.containers instanceof TrustList)) {
+            this.containers = new TrustList(this, this.containers);
+        }
         return this.containers;
     }
 
     public List<UUID> getManagers() {
+        if (!(this.managers instanceof TrustList)) {
+            this.managers = new TrustList(this, this.managers);
+        }
         return this.managers;
     }
 
+    // Whether PUBLIC_UUID has been given any trust
+    @Override
+    public boolean hasPublicTrust() {
+        this.getTrustIndex();
+        return this.publicTrust;
+    }
+
+    @Override
+    public boolean isUserTrusted(UUID uuid, TrustType type) {
+        final EnumSet<TrustType> types = this.getTrustIndex().get(uuid);
+        return types != null && types.contains(type);
+    }
+
+    @Override
+    public int getTrustVersion() {
+        return this.trustVersion;
+    }
+
+    public void invalidateTrustIndex() {
+        this.trustIndex = null;
+        this.trustVersion++;
+        GPPermissionHandler.invalidateDecisionCache();
+    }
+
+    @Override
+    public Map<UUID, EnumSet<TrustType>> getTrustIndex() {
+        Map<UUID, EnumSet<TrustType>> index = this.trustIndex;
+        if (index != null) {
+            return index;
+        }
+
+        index = Maps.newHashMap();
+        addTrusts(index, this.getAccessors(), EnumSet.of(TrustType.ACCESSOR));
+        addTrusts(index, this.getContainers(), EnumSet.of(TrustType.ACCESSOR, TrustType.CONTAINER));
+        addTrusts(index, this.getBuilders(), EnumSet.of(TrustType.ACCESSOR, TrustType.CONTAINER, TrustType.BUILDER));
+        addTrusts(index, this.getManagers(), EnumSet.of(TrustType.ACCESSOR, TrustType.CONTAINER, TrustType.BUILDER, TrustType.MANAGER));
+        this.publicTrust = index.containsKey(GriefPreventionPlugin.PUBLIC_UUID);
+        this.trustIndex = index;
+        return index;
+    }
+
+    private static void addTrusts(Map<UUID, EnumSet<TrustType>> index, List<UUID> uuids, EnumSet<TrustType> types) {
+        for (UUID uuid : uuids) {
+            final EnumSet<TrustType> current = index.get(uuid);
+            if (current == null) {
+                index.put(uuid, EnumSet.copyOf(types));
+            } else {
+                current.addAll(types);
+            }
+        }
+    }
+
     public List<String> getAccessorGroups() {
         return this.accessorGroups;
     }
@@ -421,25 +500,29 @@ public void setGreaterBoundaryCorner(String location) {
     @Override
     public void setAccessors(List<UUID> accessors) {
         this.requiresSave = true;
-        this.accessors = accessors;
+        this.accessors = new TrustList(this, accessors);
+        this.invalidateTrustIndex();
     }
 
     @Override
     public void setBuilders(List<UUID> builders) {
         this.requiresSave = true;
-        this.builders = builders;
+        this.builders = new TrustList(this, builders);
+        this.invalidateTrustIndex();
     }
 
     @Override
     public void setContainers(List<UUID> containers) {
         this.requiresSave = true;
-        this.containers = containers;
+        this.containers = new TrustList(this, containers);
+        this.invalidateTrustIndex();
     }
 
     @Override
     public void setManagers(List<UUID> coowners) {
         this.requiresSave = true;
-        this.managers = coowners;
+        this.managers = new TrustList(this, coowners);
+        this.invalidateTrustIndex();
     }
 
     public Map<UUID, ClaimDataConfig> getSubdivisions() {
@@ -453,6 +536,10 @@ public boolean requiresSave() {
     @Override
     public void setRequiresSave(boolean flag) {
         this.requiresSave = flag;
+        if (flag) {
+            // trusts and claim settings may have changed
+            GPPermissionHandler.invalidateDecisionCache();
+        }
     }
 
     @Override
@@ -473,6 +560,7 @@ public boolean doesInheritParent() {
     public void setInheritParent(boolean flag) {
         this.requiresSave = true;
         this.inheritParent = flag;
+        this.invalidateTrustIndex();
     }
 
     @Override
@@ -541,4 +629,74 @@ public void setExpired(boolean expire) {
     public EconomyData getEconomyData() {
         return this.economyData;
     }
-}
\ No newline at end of file
+
+    // Trust list that drops the owning config's trust index whenever it is modified. Iterators and
+    // sub lists from AbstractList write back through set, add, remove and removeRange
+    private static class TrustList extends AbstractList<UUID> implements RandomAccess {
+
+        private final ClaimDataConfig config;
+        private final ArrayList<UUID> uuids;
+
+        TrustList(ClaimDataConfig config, List<UUID> uuids) {
+            this.config = config;
+            this.uuids = new ArrayList<>(uuids);
+        }
+
+        @Override
+        public UUID get(int index) {
+            return this.uuids.get(index);
+        }
+
+        @Override
+        public int size() {
+            return this.uuids.size();
+        }
+
+        @Override
+        public UUID set(int index, UUID uuid) {
+            this.config.invalidateTrustIndex();
+            return this.uuids.set(index, uuid);
+        }
+
+        @Override
+        public void add(int index, UUID uuid) {
+            this.config.invalidateTrustIndex();
+            this.modCount++;
+            this.uuids.add(index, uuid);
+        }
+
+        @Override
+        public UUID remove(int index) {
+            this.config.invalidateTrustIndex();
+            this.modCount++;
+            return this.uuids.remove(index);
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            this.config.invalidateTrustIndex();
+            this.modCount++;
+            this.uuids.subList(fromIndex, toIndex).clear();
+        }
+
+        @Override
+        public boolean removeIf(Predicate<? super UUID> filter) {
+            this.config.invalidateTrustIndex();
+            this.modCount++;
+            return this.uuids.removeIf(filter);
+        }
+
+        @Override
+        public void replaceAll(UnaryOperator<UUID> operator) {
+            this.config.invalidateTrustIndex();
+            this.uuids.replaceAll(operator);
+        }
+
+        @Override
+        public void sort(Comparator<? super UUID> comparator) {
+            this.config.invalidateTrustIndex();
+            this.modCount++;
+            this.uuids.sort(comparator);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.configuration;
+
+import com.google.common.collect.Maps;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import ninja.leaping.configurate.ConfigurationNode;
+import ninja.leaping.configurate.ConfigurationOptions;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.commented.SimpleCommentedConfigurationNode;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import javax.annotation.Nullable;
+
+// One binary file per world holding the data of every claim so a world can be loaded
+// without parsing each claim file.
+// The claim files stay the source of truth, admins can still edit them by hand. An entry
+// is only used while its claim file has the same path, size and modified time it had when
+// the snapshot was written, anything else is loaded from the claim file.
+public class ClaimSnapshot {
+
+    public static final String FILE_NAME = "ClaimData.snapshot";
+
+    private static final int MAGIC = 0x47505353; // GPSS
+    private static final int VERSION = 1;
+    private static final int CHECKSUM_LENGTH = 8;
+
+    private static final byte NULL = 0;
+    private static final byte MAP = 1;
+    private static final byte LIST = 2;
+    private static final byte STRING = 3;
+    private static final byte INTEGER = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte BOOLEAN = 8;
+
+    public static class Entry {
+
+        private final UUID claimId;
+        private final String path;
+        private final long size;
+        private final long modified;
+        private final CommentedConfigurationNode root;
+
+        private Entry(UUID claimId, String path, long size, long modified, CommentedConfigurationNode root) {
+            this.claimId = claimId;
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.root = root;
+        }
+
+        // Returns the claim's root node if its file is unchanged since the snapshot was written
+        @Nullable
+        public CommentedConfigurationNode getRootIfCurrent(Path claimDataPath, Path claimFile) {
+            try {
+                if (this.path.equals(relativize(claimDataPath, claimFile)) && this.size == Files.size(claimFile)
+                        && this.modified == getModified(claimFile)) {
+                    return this.root;
+                }
+            } catch (IOException e) {
+                // fall back to the claim file
+            }
+            return null;
+        }
+    }
+
+    // Returns the entries of the snapshot keyed by claim id, empty if the snapshot is missing or unusable
+    public static Map<UUID, Entry> read(Path snapshotPath) {
+        if (Files.notExists(snapshotPath)) {
+            return Maps.newHashMap();
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < 12 + CHECKSUM_LENGTH) {
+                throw new IOException("truncated file");
+            }
+            final ByteBuffer body = buffer.duplicate();
+            body.limit(buffer.limit() - CHECKSUM_LENGTH);
+            final CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong(buffer.limit() - CHECKSUM_LENGTH)) {
+                throw new IOException("checksum mismatch");
+            }
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("not a claim snapshot");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported version " + version);
+            }
+
+            final int count = buffer.getInt();
+            final Map<UUID, Entry> entries = Maps.newHashMapWithExpectedSize(count);
+            for (int i = 0; i < count; i++) {
+                final UUID claimId = new UUID(buffer.getLong(), buffer.getLong());
+                final String path = readString(buffer);
+                final long size = buffer.getLong();
+                final long modified = buffer.getLong();
+                final CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults()
+                        .setHeader(GriefPreventionPlugin.CONFIG_HEADER));
+                readNode(buffer, root.getNode(GriefPreventionPlugin.MOD_ID));
+                entries.put(claimId, new Entry(claimId, path, size, modified, root));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            SpongeImpl.getLogger().warn("Ignoring claim snapshot '" + snapshotPath + "' (" + e.getMessage() + "), claims will be loaded from their files.");
+            return Maps.newHashMap();
+        }
+    }
+
+    // Must run on the claim writer thread after the claim files it describes have been written
+    public static void write(Path snapshotPath, Path claimDataPath, Map<Path, CommentedConfigurationNode> claims) throws IOException {
+        final List<Entry> entries = new ArrayList<>(claims.size());
+        for (Map.Entry<Path, CommentedConfigurationNode> mapEntry : claims.entrySet()) {
+            final Path claimFile = mapEntry.getKey();
+            final UUID claimId;
+            try {
+                claimId = UUID.fromString(claimFile.getFileName().toString());
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (Files.notExists(claimFile)) {
+                continue;
+            }
+            entries.add(new Entry(claimId, relativize(claimDataPath, claimFile), Files.size(claimFile), getModified(claimFile), mapEntry.getValue()));
+        }
+
+        ClaimStorageWriter.writeAtomic(snapshotPath, tempPath -> {
+            try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                final CRC32 crc = new CRC32();
+                final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(fileOut, crc));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeLong(entry.claimId.getMostSignificantBits());
+                    out.writeLong(entry.claimId.getLeastSignificantBits());
+                    writeString(out, entry.path);
+                    out.writeLong(entry.size);
+                    out.writeLong(entry.modified);
+                    writeNode(out, entry.root.getNode(GriefPreventionPlugin.MOD_ID));
+                }
+                out.flush();
+                new DataOutputStream(fileOut).writeLong(crc.getValue());
+            }
+        });
+    }
+
+    private static String relativize(Path claimDataPath, Path claimFile) {
+        return claimDataPath.toAbsolutePath().normalize().relativize(claimFile.toAbsolutePath().normalize()).toString();
+    }
+
+    private static long getModified(Path claimFile) throws IOException {
+        return Files.getLastModifiedTime(claimFile).to(TimeUnit.NANOSECONDS);
+    }
+
+    private static void writeNode(DataOutputStream out, ConfigurationNode node) throws IOException {
+        if (node.hasMapChildren()) {
+            final Map<Object, ? extends ConfigurationNode> children = node.getChildrenMap();
+            out.writeByte(MAP);
+            out.writeInt(children.size());
+            for (Map.Entry<Object, ? extends ConfigurationNode> child : children.entrySet()) {
+                writeString(out, String.valueOf(child.getKey()));
+                writeNode(out, child.getValue());
+            }
+        } else if (node.hasListChildren()) {
+            final List<? extends ConfigurationNode> children = node.getChildrenList();
+            out.writeByte(LIST);
+            out.writeInt(children.size());
+            for (ConfigurationNode child : children) {
+                writeNode(out, child);
+            }
+        } else {
+            final Object value = node.getValue();
+            if (value == null) {
+                out.writeByte(NULL);
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                out.writeByte(INTEGER);
+                out.writeInt(((Number) value).intValue());
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else {
+                out.writeByte(STRING);
+                writeString(out, value.toString());
+            }
+        }
+    }
+
+    private static void readNode(ByteBuffer buffer, ConfigurationNode node) {
+        final byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                break;
+            case MAP: {
+                final int size = buffer.getInt();
+                if (size == 0) {
+                    node.setValue(Maps.newLinkedHashMap());
+                }
+                for (int i = 0; i < size; i++) {
+                    readNode(buffer, node.getNode(readString(buffer)));
+                }
+                break;
+            }
+            case LIST: {
+                final int size = buffer.getInt();
+                if (size == 0) {
+                    node.setValue(new ArrayList<>());
+                }
+                for (int i = 0; i < size; i++) {
+                    readNode(buffer, node.getAppendedNode());
+                }
+                break;
+            }
+            case STRING:
+                node.setValue(readString(buffer));
+                break;
+            case INTEGER:
+                node.setValue(buffer.getInt());
+                break;
+            case LONG:
+                node.setValue(buffer.getLong());
+                break;
+            case DOUBLE:
+                node.setValue(buffer.getDouble());
+                break;
+            case FLOAT:
+                node.setValue(buffer.getFloat());
+                break;
+            case BOOLEAN:
+                node.setValue(buffer.get() != 0);
+                break;
+            default:
+                throw new IllegalStateException("unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -25,6 +25,7 @@
 package me.ryanhamshire.griefprevention.configuration;
 
 import com.flowpowered.math.vector.Vector3i;
+import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
@@ -54,6 +55,8 @@
 
 public class ClaimStorageData {
 
+    public static final ClaimStorageWriter WRITER = new ClaimStorageWriter();
+
     protected HoconConfigurationLoader loader;
     private CommentedConfigurationNode root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults()
             .setHeader(GriefPreventionPlugin.CONFIG_HEADER));
@@ -105,11 +108,6 @@ public ClaimStorageData(Path path, UUID worldUniqueId, UUID ownerUniqueId, Claim
         this.filePath = path;
         this.folderPath = path.getParent();
         try {
-            Files.createDirectories(path.getParent());
-            if (Files.notExists(path)) {
-                Files.createFile(path);
-            }
-
             this.loader = HoconConfigurationLoader.builder().setPath(path).build();
             if (type == ClaimType.TOWN) {
                 this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
@@ -121,7 +119,7 @@ public ClaimStorageData(Path path, UUID worldUniqueId, UUID ownerUniqueId, Claim
             this.configMapper.getInstance().setType(type);
             this.configMapper.getInstance().setCuboid(cuboid);
             this.configMapper.getInstance().setClaimStorageData(this);
-            reload();
+            this.load();
             ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(Sponge.getServer().getWorld(worldUniqueId).get().getProperties());
         } catch (Exception e) {
             SpongeImpl.getLogger().error("Failed to initialize configuration", e);
@@ -133,14 +131,9 @@ public ClaimStorageData(Path path, UUID worldUniqueId, ClaimDataConfig claimData
         this.filePath = path;
         this.folderPath = path.getParent();
         try {
-            Files.createDirectories(path.getParent());
-            if (Files.notExists(path)) {
-                Files.createFile(path);
-            }
-
             this.loader = HoconConfigurationLoader.builder().setPath(path).build();
             this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bind(claimData);
-            reload();
+            this.load();
             ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
         } catch (Exception e) {
             SpongeImpl.getLogger().error("Failed to initialize configuration", e);
@@ -153,11 +146,26 @@ public ClaimStorageData(Path path, UUID worldUniqueId) {
         this.filePath = path;
         this.folderPath = path.getParent();
         try {
-            Files.createDirectories(path.getParent());
-            if (Files.notExists(path)) {
-                Files.createFile(path);
+            this.loader = HoconConfigurationLoader.builder().setPath(path).build();
+            if (path.getParent().endsWith("town")) {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
+            } else {
+                this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bindToNew();
             }
+            this.configMapper.getInstance().setClaimStorageData(this);
+            this.load();
+            ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
+        } catch (Exception e) {
+            SpongeImpl.getLogger().error("Failed to initialize configuration", e);
+        }
+    }
 
+    // Used during server load when the claim data was read from a claim snapshot or database instead of its file
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ClaimStorageData(Path path, UUID worldUniqueId, CommentedConfigurationNode root) {
+        this.filePath = path;
+        this.folderPath = path.getParent();
+        try {
             this.loader = HoconConfigurationLoader.builder().setPath(path).build();
             if (path.getParent().endsWith("town")) {
                 this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(TownDataConfig.class).bindToNew();
@@ -165,7 +173,9 @@ public ClaimStorageData(Path path, UUID worldUniqueId) {
                 this.configMapper = (ObjectMapper.BoundInstance) ObjectMapper.forClass(ClaimDataConfig.class).bindToNew();
             }
             this.configMapper.getInstance().setClaimStorageData(this);
-            reload();
+            this.root = root;
+            this.configBase = this.configMapper.populate(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+            this.configBase.invalidateTrustIndex();
             ((EconomyDataConfig) this.configMapper.getInstance().getEconomyData()).activeConfig = GriefPreventionPlugin.getActiveConfig(worldUniqueId);
         } catch (Exception e) {
             SpongeImpl.getLogger().error("Failed to initialize configuration", e);
@@ -178,20 +188,45 @@ public ClaimDataConfig getConfig() {
 
     public void save() {
         try {
-            // subdivisions are stored in their own claim files
-            this.root.getNode(GriefPreventionPlugin.MOD_ID).removeChild("subdivisions");
-            this.configMapper.serialize(this.root.getNode(GriefPreventionPlugin.MOD_ID));
-            this.loader.save(this.root);
+            // serialize into a copy of the loaded root so the writer thread owns the snapshot it is given,
+            // keys the mapper doesn't know are kept except the legacy subdivisions node as subdivisions have their own files
+            final CommentedConfigurationNode snapshot = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults()
+                    .setHeader(GriefPreventionPlugin.CONFIG_HEADER));
+            if (this.root != null) {
+                snapshot.setValue(this.root.getValue());
+                snapshot.getNode(GriefPreventionPlugin.MOD_ID).removeChild("subdivisions");
+            }
+            this.configMapper.serialize(snapshot.getNode(GriefPreventionPlugin.MOD_ID));
+            this.root = snapshot;
             this.configBase.setRequiresSave(false);
-        } catch (IOException | ObjectMappingException e) {
+            GriefPreventionPlugin.instance.dataStore.saveClaimStorage(this, snapshot);
+        } catch (ObjectMappingException e) {
             SpongeImpl.getLogger().error("Failed to save configuration", e);
         }
     }
 
+    // Loads the claim file, creating it if needed. Claims of stores without claim files start empty.
+    private void load() throws IOException {
+        final DataStore dataStore = GriefPreventionPlugin.instance.dataStore;
+        if (dataStore != null && !dataStore.usesClaimFiles()) {
+            this.root = SimpleCommentedConfigurationNode.root(ConfigurationOptions.defaults().setHeader(GriefPreventionPlugin.CONFIG_HEADER));
+            this.configBase = this.configMapper.populate(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+            this.configBase.invalidateTrustIndex();
+            return;
+        }
+
+        Files.createDirectories(this.filePath.getParent());
+        if (Files.notExists(this.filePath)) {
+            Files.createFile(this.filePath);
+        }
+        reload();
+    }
+
     public void reload() {
         try {
             this.root = this.loader.load(ConfigurationOptions.defaults().setHeader(GriefPreventionPlugin.CONFIG_HEADER));
             this.configBase = this.configMapper.populate(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+            this.configBase.invalidateTrustIndex();
         } catch (Exception e) {
             SpongeImpl.getLogger().error("Failed to load configuration", e);
         }
@@ -270,11 +305,16 @@ public CompletableFuture<CommentedConfigurationNode> updateSetting(String key, O
             CommentedConfigurationNode upd = getSetting(key);
             upd.setValue(value);
             this.configBase = this.configMapper.populate(this.root.getNode(GriefPreventionPlugin.MOD_ID));
+            this.configBase.invalidateTrustIndex();
             this.loader.save(this.root);
             return upd;
         }, ForkJoinPool.commonPool());
     }
 
+    public CommentedConfigurationNode getRoot() {
+        return this.root;
+    }
+
     public CommentedConfigurationNode getRootNode() {
         return this.root.getNode(GriefPreventionPlugin.MOD_ID);
     }
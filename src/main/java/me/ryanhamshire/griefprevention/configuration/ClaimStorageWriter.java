@@ -0,0 +1,263 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.configuration;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import ninja.leaping.configurate.commented.CommentedConfigurationNode;
+import ninja.leaping.configurate.hocon.HoconConfigurationLoader;
+import org.spongepowered.common.SpongeImpl;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Writes claim files off the server thread.
+// Callers hand over a snapshot node that is never touched again. Snapshots queued for
+// the same file replace each other so only the latest one is written, and each file is
+// written to a temp file first then renamed over the old one.
+public class ClaimStorageWriter {
+
+    private final Map<Path, Write> pending = new LinkedHashMap<>();
+    // writes that threw, queued again on the next flush or world save unless a newer write replaced them
+    private final Map<Path, Write> failed = new LinkedHashMap<>();
+    // paths a caller is waiting on, written before the rest of the queue
+    private final Set<Path> urgent = new LinkedHashSet<>();
+    // path the writer thread is currently writing
+    private Path writing;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("GriefPrevention Claim Writer").setDaemon(true).build());
+    // last node written per claim file since the last snapshot, only used on the writer thread
+    private final Map<Path, CommentedConfigurationNode> written = new HashMap<>();
+    private volatile boolean trackWrites = false;
+    private boolean running = false;
+    private long coalescedWrites = 0;
+
+    public void write(Path path, CommentedConfigurationNode snapshot) {
+        this.enqueue(path, () -> {
+            writeAtomic(path, tempPath -> HoconConfigurationLoader.builder().setPath(tempPath).build().save(snapshot));
+            if (this.trackWrites) {
+                this.written.put(path, snapshot);
+            }
+        });
+    }
+
+    public void delete(Path path) {
+        this.enqueue(path, () -> {
+            Files.deleteIfExists(path);
+            this.written.remove(path);
+        });
+    }
+
+    // Queues a claim snapshot behind the claim writes queued so far.
+    // Roots were captured before this call, a claim file written since then is stored
+    // with the node that was written so every entry matches its file.
+    public void writeSnapshot(Path snapshotPath, Path claimDataPath, Map<Path, CommentedConfigurationNode> claims) {
+        this.enqueue(snapshotPath, () -> {
+            for (Map.Entry<Path, CommentedConfigurationNode> entry : claims.entrySet()) {
+                final CommentedConfigurationNode node = this.written.remove(entry.getKey());
+                if (node != null) {
+                    entry.setValue(node);
+                }
+            }
+            ClaimSnapshot.write(snapshotPath, claimDataPath, claims);
+        });
+    }
+
+    // Must be called before capturing the roots passed to writeSnapshot
+    public void trackWrites() {
+        this.trackWrites = true;
+    }
+
+    // Runs a write of any other file in queue order, it replaces any write queued for the same path
+    public void submit(Path path, Write write) {
+        this.enqueue(path, write);
+    }
+
+    // Queues every failed write again
+    public void retryFailedWrites() {
+        final Map<Path, Write> retries;
+        synchronized (this) {
+            if (this.failed.isEmpty()) {
+                return;
+            }
+            retries = new LinkedHashMap<>(this.failed);
+            this.failed.clear();
+        }
+        for (Map.Entry<Path, Write> entry : retries.entrySet()) {
+            this.retry(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // Blocks until everything queued before this call is on disk, failed writes are retried once
+    public void flush() {
+        this.retryFailedWrites();
+        synchronized (this) {
+            boolean interrupted = false;
+            while (this.running) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Blocks until the write queued for path, if any, is on disk. Used before a claim file is moved,
+    // so a failed write is not retried as it would recreate the file at its old path.
+    public void flush(Path path) {
+        synchronized (this) {
+            if (this.pending.containsKey(path)) {
+                this.urgent.add(path);
+            }
+            boolean interrupted = false;
+            while (this.pending.containsKey(path) || path.equals(this.writing)) {
+                try {
+                    this.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            this.failed.remove(path);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return this.pending.size() + this.failed.size();
+    }
+
+    public synchronized long getCoalescedWrites() {
+        return this.coalescedWrites;
+    }
+
+    private void retry(Path path, Write write) {
+        synchronized (this) {
+            if (this.pending.containsKey(path)) {
+                return;
+            }
+        }
+
+        this.enqueue(path, write);
+    }
+
+    private void enqueue(Path path, Write write) {
+        synchronized (this) {
+            this.failed.remove(path);
+            if (this.pending.put(path, write) != null) {
+                this.coalescedWrites++;
+            }
+            if (this.running) {
+                return;
+            }
+            this.running = true;
+        }
+
+        this.executor.execute(this::drain);
+    }
+
+    private void drain() {
+        while (true) {
+            final Path path;
+            final Write write;
+            synchronized (this) {
+                if (this.pending.isEmpty()) {
+                    this.urgent.clear();
+                    this.running = false;
+                    this.notifyAll();
+                    return;
+                }
+                path = this.nextPath();
+                write = this.pending.remove(path);
+                this.writing = path;
+            }
+
+            try {
+                write.write();
+            } catch (Throwable t) {
+                SpongeImpl.getLogger().error("Failed to save claim file '" + path + "', retrying on next flush", t);
+                synchronized (this) {
+                    if (!this.pending.containsKey(path)) {
+                        this.failed.put(path, write);
+                    }
+                }
+            }
+            synchronized (this) {
+                this.writing = null;
+                this.notifyAll();
+            }
+        }
+    }
+
+    // Urgent paths first, then queue order
+    private Path nextPath() {
+        final Iterator<Path> iterator = this.urgent.iterator();
+        while (iterator.hasNext()) {
+            final Path path = iterator.next();
+            iterator.remove();
+            if (this.pending.containsKey(path)) {
+                return path;
+            }
+        }
+
+        return this.pending.keySet().iterator().next();
+    }
+
+    // Writes to a temp file next to path then moves it over path
+    public static void writeAtomic(Path path, TempWrite tempWrite) throws IOException {
+        final Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        tempWrite.write(tempPath);
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public interface Write {
+
+        void write() throws IOException;
+    }
+
+    public interface TempWrite {
+
+        void write(Path tempPath) throws IOException;
+    }
+}
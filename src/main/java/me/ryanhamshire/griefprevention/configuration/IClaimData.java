@@ -25,8 +25,10 @@
 package me.ryanhamshire.griefprevention.configuration;
 
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
 import me.ryanhamshire.griefprevention.api.data.ClaimData;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -45,6 +47,15 @@ public interface IClaimData extends ClaimData {
 
     List<UUID> getManagers();
 
+    boolean hasPublicTrust();
+
+    boolean isUserTrusted(UUID uuid, TrustType type);
+
+    // UUID -> trust types granted, must not be modified
+    Map<UUID, EnumSet<TrustType>> getTrustIndex();
+
+    int getTrustVersion();
+
     List<String> getAccessorGroups();
 
     List<String> getBuilderGroups();
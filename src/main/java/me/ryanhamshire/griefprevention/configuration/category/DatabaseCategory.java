@@ -30,10 +30,13 @@
 @ConfigSerializable
 public class DatabaseCategory extends ConfigCategory {
 
-    @Setting(value = "password", comment = "password")
+    @Setting(value = "password", comment = "The database password, if required.")
     public String dbPassword = "";
-    @Setting(value = "username", comment = "username")
+    @Setting(value = "username", comment = "The database username, if required.")
     public String dbUsername = "";
-    @Setting(value = "url", comment = "url")
+    @Setting(value = "url", comment = "The JDBC url used to store claims in a database. Leave empty to store claims in files."
+            + "\nWhen a world has no claims in the database, its claim files are imported on world load and kept as a backup."
+            + "\nMySQL urls get 'useCursorFetch=true' so claims are read in batches instead of all at once."
+            + "\nExample: 'jdbc:h2:./config/griefprevention/claims' or 'jdbc:mysql://localhost:3306/griefprevention'")
     public String dbURL = "";
 }
\ No newline at end of file
@@ -38,4 +38,8 @@ public class LoggingCategory extends ConfigCategory {
     public boolean loggingSocialActions = false;
     @Setting(value = "suspicious-activity", comment = "Log suspicious activity.")
     public boolean loggingSuspiciousActivity = false;
+    @Setting(value = "buffer-size", comment = "The maximum number of log entries waiting to be written. Entries are dropped and counted when the buffer is full.")
+    public int bufferSize = 8192;
+    @Setting(value = "max-file-size", comment = "The size in MB after which a log file is continued in a new file. Set to 0 to disable.")
+    public int maxFileSize = 10;
 }
\ No newline at end of file
@@ -36,4 +36,9 @@ public class PlayerDataCategory extends ConfigCategory {
             "Set to a value greater than -1 to enable. (If you use defaults, recommended start value 256)\n" + 
             "Note: This is only run one time to migrate player claimblock data to new system.\nEach chunk is worth 65,536 blocks in the new system compared to 256 in old.")
     public int migrationRate = -1;
+    @Setting(value = "offline-cache-size", comment = "The maximum number of offline players whose data is kept in memory.\n"
+            + "Data of offline players is loaded when needed, such as when their claims are checked.")
+    public int offlineCacheSize = 500;
+    @Setting(value = "offline-cache-expiration", comment = "The number of minutes data of an offline player is kept in memory after it was last used.")
+    public int offlineCacheExpiration = 10;
 }
\ No newline at end of file
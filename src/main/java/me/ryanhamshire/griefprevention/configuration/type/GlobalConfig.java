@@ -25,10 +25,12 @@
 package me.ryanhamshire.griefprevention.configuration.type;
 
 import me.ryanhamshire.griefprevention.configuration.category.BanCategory;
+import me.ryanhamshire.griefprevention.configuration.category.DatabaseCategory;
 import me.ryanhamshire.griefprevention.configuration.category.LoggingCategory;
 import me.ryanhamshire.griefprevention.configuration.category.MigratorCategory;
 import me.ryanhamshire.griefprevention.configuration.category.PlayerDataCategory;
 import me.ryanhamshire.griefprevention.configuration.category.SpamCategory;
+import me.ryanhamshire.griefprevention.configuration.category.StorageCategory;
 import me.ryanhamshire.griefprevention.configuration.category.ThreadCategory;
 import ninja.leaping.configurate.objectmapping.Setting;
 
@@ -36,8 +38,8 @@ public class GlobalConfig extends ConfigBase {
 
     @Setting
     public BanCategory bans = new BanCategory();
-    //@Setting
-    //public DatabaseCategory database = new DatabaseCategory();
+    @Setting
+    public DatabaseCategory database = new DatabaseCategory();
     @Setting
     public LoggingCategory logging = new LoggingCategory();
     @Setting
@@ -49,5 +51,7 @@ public class GlobalConfig extends ConfigBase {
             "\nNote: These migrators will NOT change or delete your data. It simply reads and creates new data for GriefPrevention.")
     public MigratorCategory migrator = new MigratorCategory();
     @Setting
+    public StorageCategory storage = new StorageCategory();
+    @Setting
     public ThreadCategory thread = new ThreadCategory();
 }
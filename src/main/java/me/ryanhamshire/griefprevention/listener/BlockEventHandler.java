@@ -31,8 +31,10 @@
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GPTimings;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.api.claim.ClaimResult;
 import me.ryanhamshire.griefprevention.api.claim.ClaimType;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.configuration.GriefPreventionConfig;
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
@@ -49,6 +51,7 @@
 import net.minecraft.util.math.BlockPos;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.block.BlockSnapshot;
+import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockType;
 import org.spongepowered.api.block.BlockTypes;
 import org.spongepowered.api.block.tileentity.TileEntity;
@@ -67,7 +70,6 @@
 import org.spongepowered.api.event.filter.cause.First;
 import org.spongepowered.api.event.filter.cause.Root;
 import org.spongepowered.api.event.world.ExplosionEvent;
-import org.spongepowered.api.service.user.UserStorageService;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.text.format.TextColors;
 import org.spongepowered.api.util.Direction;
@@ -76,13 +78,13 @@
 import org.spongepowered.api.world.LocatableBlock;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
-import org.spongepowered.common.data.util.NbtDataUtil;
-import org.spongepowered.common.interfaces.entity.IMixinEntity;
 import org.spongepowered.common.interfaces.world.IMixinLocation;
 
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 //event handlers related to blocks
@@ -90,12 +92,12 @@ public class BlockEventHandler {
 
     // convenience reference to singleton datastore
     private final DataStore dataStore;
-    private final UserStorageService userStorageService;
+    // cursor of the last notify source, redstone keeps notifying from the same few blocks
+    private ClaimCursor notifyCursor;
 
     // constructor
     public BlockEventHandler(DataStore dataStore) {
         this.dataStore = dataStore;
-        this.userStorageService = Sponge.getServiceManager().provide(UserStorageService.class).get();
     }
 
     @Listener(order = Order.FIRST, beforeModifications = true)
@@ -214,6 +216,8 @@ public void onBlockNotify(NotifyNeighborBlockEvent event, @First User user) {
         Location<World> sourceLocation = locatableBlock != null ? locatableBlock.getLocation() : tileEntity != null ? tileEntity.getLocation() : null;
         GPClaim sourceClaim = null;
         GPPlayerData playerData = null;
+        // neighbors are nearly always in the same claim as source so chain lookups through a cursor
+        ClaimCursor cursor = null;
         if (sourceLocation == null) {
             Player player = event.getCause().first(Player.class).orElse(null);
             if (player == null) {
@@ -224,9 +228,12 @@ public void onBlockNotify(NotifyNeighborBlockEvent event, @First User user) {
             sourceLocation = player.getLocation();
             playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(player.getWorld(), player.getUniqueId());
             sourceClaim = this.dataStore.getClaimAtPlayer(playerData, player.getLocation(), false);
+            cursor = playerData.claimCursor;
         } else {
             playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(sourceLocation.getExtent(), user.getUniqueId());
-            sourceClaim = this.dataStore.getClaimAt(sourceLocation, false, playerData.lastClaim.get());
+            cursor = this.dataStore.getClaimCursor(sourceLocation, false, this.notifyCursor);
+            this.notifyCursor = cursor;
+            sourceClaim = cursor.getClaim();
         }
 
         if (!GriefPreventionPlugin.instance.claimsEnabledForWorld(sourceLocation.getExtent().getProperties())) {
@@ -234,13 +241,23 @@ public void onBlockNotify(NotifyNeighborBlockEvent event, @First User user) {
             return;
         }
 
+        // fast path, when no claim boundary passes within one block of source every neighbor is in the source claim
+        if (this.dataStore.getAreaCursor(sourceLocation, 1, false, cursor) != null) {
+            if (playerData != null) {
+                playerData.setLastInteractData(sourceClaim);
+            }
+            GPTimings.BLOCK_NOTIFY_EVENT.stopTimingIfSync();
+            return;
+        }
+
         Iterator<Direction> iterator = event.getNeighbors().keySet().iterator();
         GPClaim targetClaim = null;
         while (iterator.hasNext()) {
             Direction direction = iterator.next();
             Location<World> location = sourceLocation.getBlockRelative(direction);
             Vector3i pos = location.getBlockPosition();
-            targetClaim = this.dataStore.getClaimAt(location, false, targetClaim);
+            cursor = this.dataStore.getClaimCursor(location, false, cursor);
+            targetClaim = cursor.getClaim();
             if (sourceClaim.isWilderness() && targetClaim.isWilderness()) {
                 if (playerData != null) {
                     playerData.setLastInteractData(targetClaim);
@@ -258,7 +275,7 @@ public void onBlockNotify(NotifyNeighborBlockEvent event, @First User user) {
                 }
 
                 if (creator != null) {
-                    User creatorUser = this.userStorageService.get(creator).orElse(null);
+                    User creatorUser = GriefPreventionPlugin.instance.userCache.get(creator);
                     if (!sourceClaim.isUserTrusted(creatorUser, TrustType.ACCESSOR)) {
                         iterator.remove();
                     }
@@ -332,7 +349,9 @@ public void onBlockCollide(CollideBlockEvent event, @Root Entity source, @First
             playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(event.getTargetLocation().getExtent(), user.getUniqueId());
             targetClaim = this.dataStore.getClaimAtPlayer(playerData, event.getTargetLocation(), false);
         } else {
-            targetClaim = this.dataStore.getClaimAt(event.getTargetLocation(), false, null);
+            final ClaimCursor cursor = this.dataStore.getClaimCursor(event.getTargetLocation(), false, entityBlockCache.getClaimCursor());
+            entityBlockCache.setClaimCursor(cursor);
+            targetClaim = cursor.getClaim();
         }
 
         Tristate result = GPPermissionHandler.getFlagOverride(event, event.getTargetLocation(), targetClaim, GPPermissions.ENTITY_COLLIDE_BLOCK, source, event.getTargetBlock());
@@ -434,39 +453,81 @@ public void onExplosion(ExplosionEvent.Post event) {
         User creator = null;
         if (source instanceof Entity) {
             Entity entity = (Entity) source;
-            creator = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
+            creator = GriefPreventionPlugin.instance.userCache.getCreator(entity);
         }
 
-        GPClaim targetClaim = null;
-        for (Transaction<BlockSnapshot> transaction : event.getTransactions()) {
+        final List<Transaction<BlockSnapshot>> transactions = event.getTransactions();
+        if (transactions.isEmpty()) {
+            GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
+            return;
+        }
+
+        // when the blast doesn't cross a claim boundary, a single cursor resolves every block
+        final Vector3i firstPos = transactions.get(0).getOriginal().getPosition();
+        int minX = firstPos.getX();
+        int minY = firstPos.getY();
+        int minZ = firstPos.getZ();
+        int maxX = minX;
+        int maxY = minY;
+        int maxZ = minZ;
+        for (Transaction<BlockSnapshot> transaction : transactions) {
+            final Vector3i pos = transaction.getOriginal().getPosition();
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        ClaimCursor cursor = this.dataStore.getRegionCursor(event.getTargetWorld(), minX, minY, minZ, maxX, maxY, maxZ, false);
+
+        final int seaLevel = ((net.minecraft.world.World) event.getTargetWorld()).getSeaLevel();
+        final Map<GPClaim, Map<BlockState, Tristate>> surfaceDecisions = new IdentityHashMap<>();
+        final Map<GPClaim, Map<BlockState, Tristate>> explosionDecisions = new IdentityHashMap<>();
+        for (Transaction<BlockSnapshot> transaction : transactions) {
             BlockSnapshot blockSnapshot = transaction.getOriginal();
             Location<World> location = blockSnapshot.getLocation().orElse(null);
             if (location == null) {
                 continue;
             }
 
-            targetClaim =  GriefPreventionPlugin.instance.dataStore.getClaimAt(blockSnapshot.getLocation().get(), false, targetClaim);
-            if (location.getPosition().getY() > ((net.minecraft.world.World) event.getTargetWorld()).getSeaLevel() && GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.EXPLOSION_SURFACE, source, blockSnapshot, creator, true) == Tristate.FALSE) {
+            cursor = this.dataStore.getClaimCursor(location, false, cursor);
+            final GPClaim targetClaim = cursor.getClaim();
+            if (location.getBlockY() > seaLevel && getExplosionPermission(surfaceDecisions, event, location, targetClaim, GPPermissions.EXPLOSION_SURFACE, source, blockSnapshot, creator) == Tristate.FALSE) {
                 event.setCancelled(true);
                 GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
                 return;
             }
 
-            if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.EXPLOSION, source, blockSnapshot, creator, true) == Tristate.FALSE) {
+            if (getExplosionPermission(explosionDecisions, event, location, targetClaim, GPPermissions.EXPLOSION, source, blockSnapshot, creator) == Tristate.FALSE) {
                 // Avoid lagging server from large explosions.
-                if (event.getTransactions().size() > 100) {
+                if (transactions.size() > 100) {
                     event.setCancelled(true);
                     GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
                     return;
                 }
                 transaction.setValid(false);
-                GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
-                return;
             }
         }
         GPTimings.EXPLOSION_EVENT.stopTimingIfSync();
     }
 
+    // Permissions only depend on the claim and the target block state here, so each pair is evaluated once per explosion
+    private static Tristate getExplosionPermission(Map<GPClaim, Map<BlockState, Tristate>> decisions, ExplosionEvent.Post event, Location<World> location,
+            GPClaim claim, String permission, Object source, BlockSnapshot blockSnapshot, User creator) {
+        Map<BlockState, Tristate> claimDecisions = decisions.get(claim);
+        if (claimDecisions == null) {
+            claimDecisions = new IdentityHashMap<>();
+            decisions.put(claim, claimDecisions);
+        }
+        Tristate value = claimDecisions.get(blockSnapshot.getState());
+        if (value == null) {
+            value = GPPermissionHandler.getClaimPermission(event, location, claim, permission, source, blockSnapshot, creator, true);
+            claimDecisions.put(blockSnapshot.getState(), value);
+        }
+        return value;
+    }
+
     @Listener(order = Order.FIRST, beforeModifications = true)
     public void onBlockBreak(ChangeBlockEvent.Break event) {
         GPTimings.BLOCK_BREAK_EVENT.startTimingIfSync();
@@ -646,6 +707,10 @@ public void onBlockPlace(ChangeBlockEvent.Place event) {
 
                     // otherwise, create a claim in the area around the chest
                     else {
+                        // shrink the automatic claim so it doesn't overlap another existing claim
+                        // note that since the player had permission to place the chest, at the very least,
+                        // the automatic claim will include the chest
+                        radius = Math.max(0, this.dataStore.getFreeRadius(block.getLocation().get(), radius));
                         Vector3i lesserBoundary = new Vector3i(
                                 block.getPosition().getX() - radius, 
                                 0,
@@ -654,25 +719,22 @@ public void onBlockPlace(ChangeBlockEvent.Place event) {
                                 block.getPosition().getX() + radius,
                                 player.getWorld().getDimension().getBuildHeight() - 1,
                                 block.getPosition().getZ() + radius);
-                        // as long as the automatic claim overlaps another existing
-                        // claim, shrink it note that since the player had permission to place the
-                        // chest, at the very least, the automatic claim will include the chest
-                        while (radius >= 0 && !this.dataStore.createClaim(block.getLocation().get().getExtent(),
+                        final ClaimResult result = this.dataStore.createClaim(block.getLocation().get().getExtent(),
                                 lesserBoundary,
                                 greaterBoundary,
                                 ClaimType.BASIC,
-                                player.getUniqueId(), false, Cause.of(NamedCause.source(player))).successful()) {
-                            radius--;
-                        }
+                                player.getUniqueId(), false, Cause.of(NamedCause.source(player)));
 
-                        // notify and explain to player
-                        GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.claimAutomaticNotification.toText());
+                        if (result.successful()) {
+                            // notify and explain to player
+                            GriefPreventionPlugin.sendMessage(player, GriefPreventionPlugin.instance.messageData.claimAutomaticNotification.toText());
 
-                        // show the player the protected area
-                        GPClaim newClaim = this.dataStore.getClaimAt(block.getLocation().get(), false, null);
-                        Visualization visualization = new Visualization(newClaim, VisualizationType.CLAIM);
-                        visualization.createClaimBlockVisuals(block.getPosition().getY(), player.getLocation(), playerData);
-                        visualization.apply(player);
+                            // show the player the protected area
+                            GPClaim newClaim = this.dataStore.getClaimAt(block.getLocation().get(), false, null);
+                            Visualization visualization = new Visualization(newClaim, VisualizationType.CLAIM);
+                            visualization.createClaimBlockVisuals(block.getPosition().getY(), player.getLocation(), playerData);
+                            visualization.apply(player);
+                        }
                     }
 
                     if (player.hasPermission(GPPermissions.CLAIM_SHOW_TUTORIAL)) {
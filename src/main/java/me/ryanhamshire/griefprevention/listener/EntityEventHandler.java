@@ -26,6 +26,7 @@
 package me.ryanhamshire.griefprevention.listener;
 
 import com.flowpowered.math.vector.Vector3d;
+import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.ImmutableMap;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GPPlayerData;
@@ -33,6 +34,7 @@
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.api.claim.Claim;
 import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
 import me.ryanhamshire.griefprevention.claim.ClaimsMode;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.claim.GPClaimManager;
@@ -41,6 +43,8 @@
 import me.ryanhamshire.griefprevention.permission.GPPermissionHandler;
 import me.ryanhamshire.griefprevention.permission.GPPermissions;
 import me.ryanhamshire.griefprevention.provider.MCClansApiProvider;
+import me.ryanhamshire.griefprevention.util.BlockPosCache;
+import me.ryanhamshire.griefprevention.util.BlockUtils;
 import net.minecraft.entity.EntityLiving;
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.EnumCreatureType;
@@ -52,6 +56,7 @@
 import nl.riebie.mcclans.api.ClanPlayer;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.entity.EntityTypes;
 import org.spongepowered.api.entity.explosive.Explosive;
 import org.spongepowered.api.entity.living.Living;
@@ -82,7 +87,6 @@
 import org.spongepowered.api.event.filter.cause.Root;
 import org.spongepowered.api.event.item.inventory.DropItemEvent;
 import org.spongepowered.api.event.world.ExplosionEvent;
-import org.spongepowered.api.service.user.UserStorageService;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.util.Tristate;
 import org.spongepowered.api.world.Location;
@@ -90,13 +94,15 @@
 import org.spongepowered.api.world.explosion.Explosion;
 import org.spongepowered.api.world.storage.WorldProperties;
 import org.spongepowered.common.SpongeImplHooks;
-import org.spongepowered.common.data.util.NbtDataUtil;
-import org.spongepowered.common.interfaces.entity.IMixinEntity;
 
 import java.lang.ref.WeakReference;
 import java.time.Instant;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
@@ -106,9 +112,16 @@ public class EntityEventHandler {
 
     // convenience reference for the singleton datastore
     private final DataStore dataStore;
+    // resolved once, these are null when pixelmon isn't installed
+    private final EntityType pokeballType;
+    private final EntityType occupiedPokeballType;
+    private final EntityType pixelmonType;
 
     public EntityEventHandler(DataStore dataStore) {
         this.dataStore = dataStore;
+        this.pokeballType = Sponge.getRegistry().getType(EntityType.class, "pixelmon:pokeball").orElse(null);
+        this.occupiedPokeballType = Sponge.getRegistry().getType(EntityType.class, "pixelmon:occupiedpokeball").orElse(null);
+        this.pixelmonType = Sponge.getRegistry().getType(EntityType.class, "pixelmon:pixelmon").orElse(null);
     }
 
     @Listener(order = Order.FIRST, beforeModifications = true)
@@ -134,7 +147,11 @@ public void onEntityExplosionPre(ExplosionEvent.Pre event) {
             if (user == null) {
                 UUID uuid = entity.getCreator().orElse(null);
                 if (uuid != null) {
-                    user = GriefPreventionPlugin.getOrCreateUser(uuid);
+                    user = GriefPreventionPlugin.instance.userCache.get(uuid);
+                    if (user == null) {
+                        // creators without stored user data still get a user so their trust is checked
+                        user = GriefPreventionPlugin.getOrCreateUser(uuid);
+                    }
                 }
             }
 
@@ -156,14 +173,54 @@ public void onEntityExplosionDetonate(ExplosionEvent.Detonate event) {
             return;
         }
 
+        final List<Entity> entities = event.getEntities();
+        if (entities.isEmpty()) {
+            GPTimings.ENTITY_EXPLOSION_DETONATE_EVENT.stopTimingIfSync();
+            return;
+        }
+
+        // when the blast doesn't cross a claim boundary, a single cursor resolves every entity
+        final Vector3i firstPos = entities.get(0).getLocation().getBlockPosition();
+        int minX = firstPos.getX();
+        int minY = firstPos.getY();
+        int minZ = firstPos.getZ();
+        int maxX = minX;
+        int maxY = minY;
+        int maxZ = minZ;
+        for (Entity entity : entities) {
+            final Vector3i pos = entity.getLocation().getBlockPosition();
+            minX = Math.min(minX, pos.getX());
+            minY = Math.min(minY, pos.getY());
+            minZ = Math.min(minZ, pos.getZ());
+            maxX = Math.max(maxX, pos.getX());
+            maxY = Math.max(maxY, pos.getY());
+            maxZ = Math.max(maxZ, pos.getZ());
+        }
+        ClaimCursor cursor = this.dataStore.getRegionCursor(event.getTargetWorld(), minX, minY, minZ, maxX, maxY, maxZ, false);
+
         User user = event.getCause().first(User.class).orElse(null);
-        Iterator<Entity> iterator = event.getEntities().iterator();
-        GPClaim targetClaim = null;
+        final Object source = event.getCause().root();
+        // permission only depends on the claim and the target id, so each pair is evaluated once per explosion
+        final Map<GPClaim, Map<String, Tristate>> decisions = new IdentityHashMap<>();
+        Iterator<Entity> iterator = entities.iterator();
         while (iterator.hasNext()) {
             Entity entity = iterator.next();
-            targetClaim =  GriefPreventionPlugin.instance.dataStore.getClaimAt(entity.getLocation(), false, targetClaim);
+            final Location<World> location = entity.getLocation();
+            cursor = this.dataStore.getClaimCursor(location, false, cursor);
+            final GPClaim targetClaim = cursor.getClaim();
+            Map<String, Tristate> claimDecisions = decisions.get(targetClaim);
+            if (claimDecisions == null) {
+                claimDecisions = new HashMap<>();
+                decisions.put(targetClaim, claimDecisions);
+            }
+            final String targetId = GPPermissionHandler.getPermissionIdentifier(entity);
+            Tristate value = claimDecisions.get(targetId);
+            if (value == null) {
+                value = GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.ENTITY_DAMAGE, source, entity, user);
+                claimDecisions.put(targetId, value);
+            }
 
-            if (GPPermissionHandler.getClaimPermission(event, entity.getLocation(), targetClaim, GPPermissions.ENTITY_DAMAGE, event.getCause().root(), entity, user) == Tristate.FALSE) {
+            if (value == Tristate.FALSE) {
                 iterator.remove();
             }
         }
@@ -184,26 +241,35 @@ public void onEntitySpawn(SpawnEntityEvent event, @First SpawnCause spawnCause)
         }
 
         User user = event.getCause().first(User.class).orElse(null);
+        // spawn cause and user are shared by every entity in the event
+        final boolean pokeballCause = spawnCause instanceof EntitySpawnCause && this.isPokeball(((EntitySpawnCause) spawnCause).getEntity().getType());
+        final boolean customCause = spawnCause.getType() == SpawnTypes.CUSTOM;
         event.filterEntities(new Predicate<Entity>() {
-            GPClaim targetClaim = null;
+            ClaimCursor cursor = null;
+            // Batches mostly share a claim and a target, so each pair is only evaluated once.
+            // Decisions are keyed by target id rather than type as items and pixelmon resolve to per entity ids.
+            final Map<GPClaim, Map<String, Boolean>> entityDecisions = new IdentityHashMap<>();
+            final Map<GPClaim, Map<String, Boolean>> itemDecisions = new IdentityHashMap<>();
+            final Map<GPClaim, Boolean> canBuild = new IdentityHashMap<>();
 
             @Override
             public boolean test(Entity entity) {
-                targetClaim = GriefPreventionPlugin.instance.dataStore.getClaimAt(entity.getLocation(), false, targetClaim);
-                if (targetClaim == null) {
-                    return true;
-                }
-
                 final Location<World> location = entity.getLocation();
+                cursor = dataStore.getClaimCursor(location, false, cursor);
+                final GPClaim targetClaim = cursor.getClaim();
                 String permission = GPPermissions.ENTITY_SPAWN;
+                Map<GPClaim, Map<String, Boolean>> decisions = this.entityDecisions;
                 if (entity instanceof EntityItem || entity instanceof EntityXPOrb) {
                     if (user == null) {
                         return true;
                     }
-                    if (targetClaim.isUserTrusted(user, TrustType.BUILDER)) {
-                        return true;
+                    Boolean builder = this.canBuild.get(targetClaim);
+                    if (builder == null) {
+                        builder = targetClaim.isUserTrusted(user, TrustType.BUILDER)
+                                || GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, user, location, user) == Tristate.TRUE;
+                        this.canBuild.put(targetClaim, builder);
                     }
-                    if (GPPermissionHandler.getClaimPermission(event, location, targetClaim, GPPermissions.BLOCK_BREAK, user, location, user) == Tristate.TRUE) {
+                    if (builder) {
                         return true;
                     }
                     // If we reached this point, XP orbs shouldn't be allowed to spawn
@@ -211,34 +277,55 @@ public boolean test(Entity entity) {
                         return false;
                     }
                     permission = GPPermissions.ITEM_SPAWN;
+                    decisions = this.itemDecisions;
                 }
                 // Always allow pixelmon spawns from pokeballs
                 if (spawnCause instanceof EntitySpawnCause) {
-                    final EntitySpawnCause entitySpawnCause = (EntitySpawnCause) spawnCause;
-                    final String entityId = entitySpawnCause.getEntity().getType().getId();
-                    if (entityId.equals("pixelmon:occupiedpokeball") || entityId.equals("pixelmon:pokeball")) {
-                        User owner = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
-                        if (owner != null) {
-                            return true;
-                        }
+                    if (pokeballCause && GriefPreventionPlugin.instance.userCache.getCreator(entity) != null) {
+                        return true;
                     }
-                } else if (entity.getType().getId().equals("pixelmon:occupiedpokeball") || entity.getType().getId().equals("pixelmon:pokeball") || 
-                        (spawnCause.getType() == SpawnTypes.CUSTOM && entity.getType().getId().equals("pixelmon:pixelmon"))) {
-                    User owner = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
-                    if (owner != null) {
+                } else {
+                    final EntityType entityType = entity.getType();
+                    if ((isPokeball(entityType) || (customCause && pixelmonType != null && entityType == pixelmonType))
+                            && GriefPreventionPlugin.instance.userCache.getCreator(entity) != null) {
                         return true;
                     }
                 }
-                if (GPPermissionHandler.getClaimPermission(event, entity.getLocation(), targetClaim, permission, spawnCause, entity, user, true) == Tristate.FALSE) {
-                    return false;
+
+                Map<String, Boolean> claimDecisions = decisions.get(targetClaim);
+                if (claimDecisions == null) {
+                    claimDecisions = new HashMap<>();
+                    decisions.put(targetClaim, claimDecisions);
                 }
-                return true;
+                final String targetId = GPPermissionHandler.getPermissionIdentifier(entity);
+                Boolean allowed = claimDecisions.get(targetId);
+                if (allowed == null) {
+                    allowed = GPPermissionHandler.getClaimPermission(event, location, targetClaim, permission, spawnCause, entity, user, true) != Tristate.FALSE;
+                    claimDecisions.put(targetId, allowed);
+                }
+                return allowed;
             }
         });
 
         GPTimings.ENTITY_SPAWN_EVENT.stopTimingIfSync();
     }
 
+    // Moving entities keep their claim cursor in the entity block cache so each move reuses it
+    private BlockPosCache getEntityBlockCache(Entity entity) {
+        final net.minecraft.entity.Entity mcEntity = (net.minecraft.entity.Entity) entity;
+        BlockPosCache entityBlockCache = BlockUtils.ENTITY_BLOCK_CACHE.get(mcEntity.getEntityId());
+        if (entityBlockCache == null) {
+            entityBlockCache = new BlockPosCache(BlockUtils.blockPosToShort(mcEntity.getPosition()));
+            BlockUtils.ENTITY_BLOCK_CACHE.put(mcEntity.getEntityId(), entityBlockCache);
+        }
+
+        return entityBlockCache;
+    }
+
+    private boolean isPokeball(EntityType entityType) {
+        return entityType != null && (entityType == this.pokeballType || entityType == this.occupiedPokeballType);
+    }
+
     @Listener(order = Order.FIRST, beforeModifications = true)
     public void onEntityAttack(AttackEntityEvent event, @First DamageSource damageSource) {
         GPTimings.ENTITY_ATTACK_EVENT.startTimingIfSync();
@@ -333,8 +420,8 @@ public boolean protectEntity(Event event, Entity targetEntity, Cause cause, Dama
                     }
                     Optional<UUID> creatorUuid = targetEntity.getCreator();
                     if (creatorUuid.isPresent()) {
-                        Optional<User> creator = Sponge.getGame().getServiceManager().provide(UserStorageService.class).get().get(creatorUuid.get());
-                        if (creator.isPresent() && !creator.get().getUniqueId().equals(sourceUser.getUniqueId())) {
+                        User creator = GriefPreventionPlugin.instance.userCache.get(creatorUuid.get());
+                        if (creator != null && !creator.getUniqueId().equals(sourceUser.getUniqueId())) {
                             return true;
                         }
                     } else if (sourceUser.getUniqueId().equals(claim.getOwnerUniqueId())) {
@@ -346,7 +433,7 @@ public boolean protectEntity(Event event, Entity targetEntity, Cause cause, Dama
                     if (targetEntity instanceof Player) {
                         if (SpongeImplHooks.isCreatureOfType((net.minecraft.entity.Entity) sourceEntity, EnumCreatureType.MONSTER)) {
                             if (user == null) {
-                                user = ((IMixinEntity) sourceEntity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
+                                user = GriefPreventionPlugin.instance.userCache.getCreator(sourceEntity);
                             }
                             if (GPPermissionHandler.getClaimPermission(event, targetEntity.getLocation(), claim, GPPermissions.ENTITY_DAMAGE, sourceEntity, targetEntity, user) != Tristate.TRUE) {
                                 return true;
@@ -602,7 +689,7 @@ public void onEntityMove(MoveEntityEvent event){
                 player = (Player) ((net.minecraft.entity.Entity) entity).getControllingPassenger();
                 playerData = this.dataStore.getOrCreatePlayerData(world, player.getUniqueId());
             }
-            owner = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
+            owner = GriefPreventionPlugin.instance.userCache.getCreator(entity);
         }
 
         final Location<World> fromLocation = event.getFromTransform().getLocation();
@@ -610,8 +697,12 @@ public void onEntityMove(MoveEntityEvent event){
 
         if (player == null && owner == null) {
             // Handle border event without player
-            GPClaim fromClaim = this.dataStore.getClaimAt(fromLocation, false, null);
-            GPClaim toClaim = this.dataStore.getClaimAt(toLocation, false, null);
+            final BlockPosCache entityBlockCache = this.getEntityBlockCache(entity);
+            final ClaimCursor cursor = this.dataStore.getClaimCursor(fromLocation, false, entityBlockCache.getClaimCursor());
+            GPClaim fromClaim = cursor.getClaim();
+            final ClaimCursor toCursor = this.dataStore.getClaimCursor(toLocation, false, cursor);
+            entityBlockCache.setClaimCursor(toCursor);
+            GPClaim toClaim = toCursor.getClaim();
             if (fromClaim != toClaim) {
                 GPBorderClaimEvent gpEvent = new GPBorderClaimEvent(entity, fromClaim, toClaim, event.getCause());
                 Sponge.getEventManager().post(gpEvent);
@@ -624,11 +715,18 @@ public void onEntityMove(MoveEntityEvent event){
         }
 
         GPClaim fromClaim = null;
-        GPClaim toClaim = this.dataStore.getClaimAt(toLocation);
+        GPClaim toClaim = null;
         if (playerData != null) {
+            // resolve from first so the player's cursor ends up at the destination
             fromClaim = this.dataStore.getClaimAtPlayer(playerData, fromLocation);
+            toClaim = this.dataStore.getClaimAtPlayer(playerData, toLocation);
         } else {
-            fromClaim = this.dataStore.getClaimAt(fromLocation);
+            final BlockPosCache entityBlockCache = this.getEntityBlockCache(entity);
+            final ClaimCursor cursor = this.dataStore.getClaimCursor(fromLocation, false, entityBlockCache.getClaimCursor());
+            fromClaim = cursor.getClaim();
+            final ClaimCursor toCursor = this.dataStore.getClaimCursor(toLocation, false, cursor);
+            entityBlockCache.setClaimCursor(toCursor);
+            toClaim = toCursor.getClaim();
         }
 
         if (playerData != null && playerData.lastClaim != null) {
@@ -773,7 +871,7 @@ public void onEntityTeleport(MoveEntityEvent.Teleport event, @First TeleportCaus
             player = (Player) entity;
             user = player;
         } else {
-            user = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
+            user = GriefPreventionPlugin.instance.userCache.getCreator(entity);
         }
 
         if (user == null || !GriefPreventionPlugin.instance.claimsEnabledForWorld(event.getFromTransform().getExtent().getProperties())) {
@@ -1005,7 +1103,7 @@ public boolean test(Entity entity) {
                 }
                 if (claim != null) {
                     // check owner
-                    owner = ((IMixinEntity) entity).getTrackedPlayer(NbtDataUtil.SPONGE_ENTITY_CREATOR).orElse(null);
+                    owner = GriefPreventionPlugin.instance.userCache.getCreator(entity);
                     if (owner == null) {
                         playerData.setLastCollideEntityData(entityId, true);
                         return true;
@@ -818,13 +818,14 @@ public void onPlayerLogin(ClientConnectionEvent.Login event) {
         // remember the player's ip address
         final WorldProperties worldProperties = event.getToTransform().getExtent().getProperties();
         final UUID playerUniqueId = player.getUniqueId();
-        final GPPlayerData playerData = this.dataStore.getOrCreatePlayerData(worldProperties, playerUniqueId);
+        final GPClaimManager claimWorldManager = this.dataStore.getClaimWorldManager(worldProperties);
+        // the player is not in the online list yet during login
+        final GPPlayerData playerData = claimWorldManager.getOrCreatePlayerData(playerUniqueId, true);
         playerData.receivedDropUnlockAdvertisement = false;
         playerData.ipAddress = event.getConnection().getAddress().getAddress();
-        final GPClaimManager claimWorldManager = this.dataStore.getClaimWorldManager(worldProperties);
         final Instant dateNow = Instant.now();
-        for (Claim claim : claimWorldManager.getWorldClaims()) {
-            if (claim.getType() != ClaimType.ADMIN && claim.getOwnerUniqueId().equals(playerUniqueId)) {
+        for (Claim claim : claimWorldManager.getOwnerClaims(playerUniqueId)) {
+            if (claim.getType() != ClaimType.ADMIN) {
                 // update lastActive timestamp for claim
                 claim.getData().setDateLastActive(dateNow);
                 // update timestamps for subdivisions
@@ -842,6 +843,7 @@ public void onPlayerLogin(ClientConnectionEvent.Login event) {
     public void onPlayerJoin(ClientConnectionEvent.Join event) {
         GPTimings.PLAYER_JOIN_EVENT.startTimingIfSync();
         Player player = event.getTargetEntity();
+        GriefPreventionPlugin.instance.userCache.addPlayer(player);
         if (!GriefPreventionPlugin.instance.claimsEnabledForWorld(player.getWorld().getProperties())) {
             GPTimings.PLAYER_JOIN_EVENT.stopTimingIfSync();
             return;
@@ -957,6 +959,7 @@ else if (address.equals(playerData.ipAddress.toString())) {/*
     public void onPlayerDisconnect(ClientConnectionEvent.Disconnect event) {
         // clear active visuals
         Player player = event.getTargetEntity();
+        GriefPreventionPlugin.instance.userCache.removePlayer(player.getUniqueId());
         GPPlayerData playerData = GriefPreventionPlugin.instance.dataStore.getOrCreatePlayerData(player.getWorld(), player.getUniqueId());
         playerData.visualBlocks = null;
         if (playerData.visualRevertTask != null) {
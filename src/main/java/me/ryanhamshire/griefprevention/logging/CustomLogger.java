@@ -24,32 +24,48 @@
  */
 package me.ryanhamshire.griefprevention.logging;
 
-import com.google.common.io.Files;
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import me.ryanhamshire.griefprevention.configuration.category.LoggingCategory;
 import org.spongepowered.api.Sponge;
 import org.spongepowered.api.scheduler.Scheduler;
 
 import java.io.File;
-import java.nio.charset.Charset;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+// Entries are queued in a bounded lock-free buffer and formatted and written by a dedicated
+// writer thread. When the buffer is full entries are dropped and counted instead of blocking.
 public class CustomLogger {
 
-    private final SimpleDateFormat timestampFormat = new SimpleDateFormat("HH:mm");
-    private final SimpleDateFormat filenameFormat = new SimpleDateFormat("yyyy_MM_dd");
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final char FORMATTING_CODE = '\u00A7';
+    private static final long WRITE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
     private final String logFolderPath = DataStore.dataLayerFolderPath + File.separator + "Logs";
-    private final int secondsBetweenWrites = 10;
+    private final LogRingBuffer<LogEntry> queuedEntries;
+    private final List<LogOutput> outputs = new CopyOnWriteArrayList<>();
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private final AtomicLong totalDroppedEntries = new AtomicLong();
+    private Thread writerThread;
+    private volatile boolean running = false;
 
-    // stringbuilder is not thread safe, stringbuffer is
-    private StringBuffer queuedEntries = new StringBuffer();
+    // only used by the writer thread
+    private long timestampMinute = -1;
+    private String timestamp;
 
     public CustomLogger() {
+        final LoggingCategory loggingConfig = GriefPreventionPlugin.getGlobalConfig().getConfig().logging;
+        this.queuedEntries = new LogRingBuffer<>(Math.max(64, loggingConfig.bufferSize));
+
         // ensure log folder exists
         File logFolder = new File(this.logFolderPath);
         logFolder.mkdirs();
@@ -57,24 +73,24 @@ public CustomLogger() {
         // delete any outdated log files immediately
         this.deleteExpiredLogs();
 
-        // unless disabled, schedule recurring tasks
-        int daysToKeepLogs = GriefPreventionPlugin.getGlobalConfig().getConfig().logging.loggingDaysToKeep;
+        // unless disabled, start the writer and schedule recurring tasks
+        int daysToKeepLogs = loggingConfig.loggingDaysToKeep;
         if (daysToKeepLogs > 0) {
+            this.outputs.add(new RotatingFileLogOutput(logFolder.toPath(), Math.max(0, loggingConfig.maxFileSize) * 1024L * 1024L));
+            this.running = true;
+            this.writerThread = new Thread(this::runWriter, "GriefPrevention Log Writer");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
             Scheduler scheduler = Sponge.getGame().getScheduler();
-            scheduler.createTaskBuilder().async().execute(new EntryWriter()).delay(this.secondsBetweenWrites, TimeUnit.SECONDS).interval(this
-                    .secondsBetweenWrites, TimeUnit.SECONDS).submit(GriefPreventionPlugin.instance);
             scheduler.createTaskBuilder().async().execute(new ExpiredLogRemover()).delay(1, TimeUnit.DAYS).interval(1, TimeUnit.DAYS)
                     .submit(GriefPreventionPlugin
                             .instance);
         }
     }
 
-    private static final Pattern inlineFormatterPattern = Pattern.compile("�.");
-
     public void addEntry(String entry, CustomLogEntryTypes entryType) {
         // if disabled, do nothing
-        int daysToKeepLogs = GriefPreventionPlugin.getGlobalConfig().getConfig().logging.loggingDaysToKeep;
-        if (daysToKeepLogs == 0) {
+        if (!this.running) {
             return;
         }
 
@@ -83,11 +99,29 @@ public void addEntry(String entry, CustomLogEntryTypes entryType) {
             return;
         }
 
-        // otherwise write to the in-memory buffer, after removing formatters
-        Matcher matcher = inlineFormatterPattern.matcher(entry);
-        entry = matcher.replaceAll("");
-        String timestamp = this.timestampFormat.format(new Date());
-        this.queuedEntries.append(timestamp + " " + entry + "\n");
+        // formatting is left to the writer thread
+        if (!this.queuedEntries.offer(new LogEntry(System.currentTimeMillis(), entryType, entry))) {
+            this.droppedEntries.incrementAndGet();
+            this.totalDroppedEntries.incrementAndGet();
+        }
+    }
+
+    // Outputs receive every entry written from now on, on the writer thread
+    public void addOutput(LogOutput output) {
+        this.outputs.add(output);
+    }
+
+    public void removeOutput(LogOutput output) {
+        this.outputs.remove(output);
+    }
+
+    public int getQueuedEntryCount() {
+        return this.queuedEntries.size();
+    }
+
+    // entries dropped because the buffer was full
+    public long getDroppedEntryCount() {
+        return this.totalDroppedEntries.get();
     }
 
     private boolean isEnabledType(CustomLogEntryTypes entryType) {
@@ -110,28 +144,100 @@ private boolean isEnabledType(CustomLogEntryTypes entryType) {
         return true;
     }
 
-    void writeEntries() {
+    private void runWriter() {
+        while (this.running) {
+            this.writeEntries();
+            LockSupport.parkNanos(WRITE_INTERVAL);
+        }
+        this.writeEntries();
+        for (LogOutput output : this.outputs) {
+            try {
+                output.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Stops the writer thread after it wrote every queued entry
+    public void close() {
+        if (!this.running) {
+            return;
+        }
+
+        this.running = false;
+        LockSupport.unpark(this.writerThread);
         try {
-            // if nothing to write, stop here
-            if (this.queuedEntries.length() == 0) {
-                return;
+            this.writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void writeEntries() {
+        final long dropped = this.droppedEntries.getAndSet(0);
+        if (dropped > 0) {
+            this.write(new LogEntry(System.currentTimeMillis(), CustomLogEntryTypes.Exception, dropped + " log entries were dropped because the log buffer was full."));
+        }
+
+        boolean written = dropped > 0;
+        LogEntry entry;
+        while ((entry = this.queuedEntries.poll()) != null) {
+            this.write(entry);
+            written = true;
+        }
+
+        // if nothing was written, stop here
+        if (!written) {
+            return;
+        }
+        for (LogOutput output : this.outputs) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
             }
+        }
+    }
 
-            // determine filename based on date
-            String filename = this.filenameFormat.format(new Date()) + ".log";
-            String filepath = this.logFolderPath + File.separator + filename;
-            File logFile = new File(filepath);
+    private void write(LogEntry entry) {
+        final String formattedEntry = this.getTimestamp(entry.getTimestamp()) + " " + stripFormatting(entry.getMessage());
+        for (LogOutput output : this.outputs) {
+            try {
+                output.write(entry, formattedEntry);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-            // dump content
-            Files.append(this.queuedEntries.toString(), logFile, Charset.forName("UTF-8"));
+    // the timestamp only changes once per minute
+    private String getTimestamp(long time) {
+        final long minute = time / 60000;
+        if (minute != this.timestampMinute) {
+            this.timestampMinute = minute;
+            this.timestamp = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()));
+        }
+        return this.timestamp;
+    }
 
-            // in case of a failure to write the above due to exception,
-            // the unwritten entries will remain the buffer for the next write
-            // to retry
-            this.queuedEntries.setLength(0);
-        } catch (Exception e) {
-            e.printStackTrace();
+    // removes inline formatters
+    private static String stripFormatting(String entry) {
+        if (entry.indexOf(FORMATTING_CODE) < 0) {
+            return entry;
+        }
+
+        final StringBuilder builder = new StringBuilder(entry.length());
+        for (int i = 0; i < entry.length(); i++) {
+            final char c = entry.charAt(i);
+            if (c == FORMATTING_CODE) {
+                // skip the formatter and its code
+                i++;
+                continue;
+            }
+            builder.append(c);
         }
+        return builder.toString();
     }
 
     private void deleteExpiredLogs() {
@@ -151,6 +257,10 @@ private void deleteExpiredLogs() {
                 }
 
                 String filename = file.getName().replace(".log", "");
+                // strip the index of rotated files
+                if (filename.indexOf('.') >= 0) {
+                    filename = filename.substring(0, filename.indexOf('.'));
+                }
                 String[] dateParts = filename.split("_"); // format is
                 // yyyy_MM_dd
                 if (dateParts.length != 3) {
@@ -179,15 +289,6 @@ private void deleteExpiredLogs() {
         }
     }
 
-    // transfers the internal buffer to a log file
-    private class EntryWriter implements Runnable {
-
-        @Override
-        public void run() {
-            writeEntries();
-        }
-    }
-
     private class ExpiredLogRemover implements Runnable {
 
         @Override
@@ -0,0 +1,99 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+// Writes one log file per day, named yyyy_MM_dd.log. Once a file reaches the size limit
+// the day continues in yyyy_MM_dd.1.log, yyyy_MM_dd.2.log and so on.
+public class RotatingFileLogOutput implements LogOutput {
+
+    private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM_dd");
+
+    private final Path logFolderPath;
+    private final long maxFileSize;
+    private BufferedWriter writer;
+    private LocalDate fileDate;
+    private long fileSize;
+
+    // maxFileSize is in bytes, 0 disables size based rotation
+    public RotatingFileLogOutput(Path logFolderPath, long maxFileSize) {
+        this.logFolderPath = logFolderPath;
+        this.maxFileSize = maxFileSize;
+    }
+
+    @Override
+    public void write(LogEntry entry, String formattedEntry) throws IOException {
+        final LocalDate date = Instant.ofEpochMilli(entry.getTimestamp()).atZone(ZoneId.systemDefault()).toLocalDate();
+        if (this.writer == null || !date.equals(this.fileDate) || (this.maxFileSize > 0 && this.fileSize >= this.maxFileSize)) {
+            this.open(date);
+        }
+        this.writer.write(formattedEntry);
+        this.writer.newLine();
+        // chars, close enough to bytes for rotation
+        this.fileSize += formattedEntry.length() + 1;
+    }
+
+    private void open(LocalDate date) throws IOException {
+        this.close();
+        final String baseName = FILENAME_FORMAT.format(date);
+        Path logFile = this.logFolderPath.resolve(baseName + ".log");
+        int index = 0;
+        while (this.maxFileSize > 0 && Files.exists(logFile) && Files.size(logFile) >= this.maxFileSize) {
+            logFile = this.logFolderPath.resolve(baseName + "." + (++index) + ".log");
+        }
+
+        this.writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.fileDate = date;
+        this.fileSize = Files.size(logFile);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.writer != null) {
+            this.writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            } finally {
+                this.writer = null;
+            }
+        }
+    }
+}
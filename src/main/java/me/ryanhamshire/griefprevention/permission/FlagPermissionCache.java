@@ -0,0 +1,186 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+// Caches the permission nodes built for a flag check by (flag, source id, target id).
+// Building them requires splits, a regex match and several concatenations, which
+// previously happened on every notify, collide and spawn event.
+public class FlagPermissionCache {
+
+    // Matches trailing meta of an identifier such as "minecraft:stone.1"
+    public static final Pattern META_PATTERN = Pattern.compile("\\.[\\d+]*$");
+
+    // Key used for an absent source since ConcurrentHashMap does not allow null keys
+    private static final String NONE = "\0";
+    private static final int MAX_ENTRIES = 50000;
+
+    private final boolean override;
+    // flag permission -> source id -> target id -> nodes
+    private final Map<String, Map<String, Map<String, Nodes>>> cache = new ConcurrentHashMap<>();
+    // only approximate under concurrent access, used to keep the cache bounded
+    private volatile int size = 0;
+
+    // override = TRUE builds nodes the way flag overrides are checked
+    public FlagPermissionCache(boolean override) {
+        this.override = override;
+    }
+
+    // For overrides, sourceId and targetId are null when no source or target object is involved
+    public Nodes get(String flagPermission, @Nullable String sourceId, @Nullable String targetId) {
+        if (targetId == null) {
+            // only overrides pass no target, which is just the flag itself
+            return this.override ? buildOverrideNodes(flagPermission, sourceId, null) : buildNodes(flagPermission, sourceId == null ? "" : sourceId, "");
+        }
+
+        final String sourceKey = sourceId == null ? NONE : sourceId;
+        final Map<String, Map<String, Nodes>> sourceMap = this.cache.get(flagPermission);
+        if (sourceMap != null) {
+            final Map<String, Nodes> targetMap = sourceMap.get(sourceKey);
+            if (targetMap != null) {
+                final Nodes nodes = targetMap.get(targetId);
+                if (nodes != null) {
+                    return nodes;
+                }
+            }
+        }
+
+        final Nodes nodes = this.override ? buildOverrideNodes(flagPermission, sourceId, targetId) : buildNodes(flagPermission, sourceId == null ? "" : sourceId, targetId);
+        if (this.size >= MAX_ENTRIES) {
+            this.clear();
+        }
+
+        this.cache.computeIfAbsent(flagPermission, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(sourceKey, k -> new ConcurrentHashMap<>())
+                .put(targetId, nodes);
+        this.size++;
+        return nodes;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.cache.clear();
+        this.size = 0;
+    }
+
+    private static Nodes buildNodes(String flagPermission, String sourceId, String targetId) {
+        String targetPermission = flagPermission;
+        String targetModPermission = null;
+        String targetMetaPermission = null;
+        if (!targetId.isEmpty()) {
+            String[] parts = targetId.split(":");
+            String targetMod = parts[0];
+            // move target meta to end of permission
+            Matcher m = META_PATTERN.matcher(targetId);
+            String targetMeta = "";
+            if (m.find()) {
+                targetMeta = m.group(0);
+                targetId = targetId.replace(targetMeta, "");
+            }
+            if (!targetMeta.isEmpty()) {
+                targetMetaPermission = flagPermission + "." + targetId.replace(":", ".") + targetMeta;
+            }
+            if (!sourceId.isEmpty()) {
+                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                targetPermission += "." + targetId + ".source." + sourceId + targetMeta;
+            } else {
+                targetModPermission = flagPermission + "." + targetMod + targetMeta;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                targetPermission += "." + targetId + targetMeta;
+            }
+        } else if (!sourceId.isEmpty()) {
+            String targetMod = "";
+            if (sourceId.contains(":")) {
+                String[] parts = sourceId.split(":");
+                targetMod = parts[0];
+                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId;
+                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+            }
+            targetPermission += ".source." + sourceId;
+        }
+
+        targetPermission = StringUtils.replace(targetPermission, ":", ".");
+        return new Nodes(targetPermission, targetModPermission, targetMetaPermission);
+    }
+
+    private static Nodes buildOverrideNodes(String flagPermission, @Nullable String sourceId, @Nullable String targetId) {
+        String targetModPermission = null;
+        String targetMetaPermission = null;
+        if (targetId != null && sourceId == null) {
+            flagPermission += "." + targetId;
+        } else if (targetId != null) {
+            if (!targetId.isEmpty()) {
+                String[] parts = targetId.split(":");
+                String targetMod = parts[0];
+                if (!sourceId.isEmpty()) {
+                    // move target meta to end of permission
+                    Matcher m = META_PATTERN.matcher(targetId);
+                    String targetMeta = "";
+                    if (m.find()) {
+                        targetMeta = m.group(0);
+                        targetId = targetId.replace(targetMeta, "");
+                    }
+                    if (!targetMeta.isEmpty()) {
+                        targetMetaPermission = flagPermission + "." + targetId.replace(":", ".") + targetMeta;
+                    }
+                    targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
+                    targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+                    flagPermission += "." + targetId + ".source." + sourceId + targetMeta;
+                } else {
+                    flagPermission += "." + targetId;
+                }
+            }
+        }
+
+        flagPermission = StringUtils.replace(flagPermission, ":", ".");
+        return new Nodes(flagPermission, targetModPermission, targetMetaPermission);
+    }
+
+    // The permission nodes checked for a single flag, source and target combination
+    public static class Nodes {
+
+        public final String permission;
+        @Nullable public final String modPermission;
+        @Nullable public final String metaPermission;
+
+        Nodes(String permission, @Nullable String modPermission, @Nullable String metaPermission) {
+            this.permission = permission;
+            this.modPermission = modPermission;
+            this.metaPermission = metaPermission;
+        }
+    }
+}
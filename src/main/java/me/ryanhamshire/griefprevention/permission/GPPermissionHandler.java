@@ -35,7 +35,6 @@
 import me.ryanhamshire.griefprevention.claim.GPClaim;
 import me.ryanhamshire.griefprevention.util.BlockUtils;
 import net.minecraft.entity.EnumCreatureType;
-import net.minecraft.entity.item.EntityItem;
 import net.minecraft.item.ItemBlock;
 import org.apache.commons.lang3.StringUtils;
 import org.spongepowered.api.CatalogType;
@@ -69,17 +68,36 @@
 import org.spongepowered.api.world.World;
 import org.spongepowered.common.SpongeImplHooks;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class GPPermissionHandler {
 
+    // Permission nodes built for each (flag, source, target) combination
+    private static final FlagPermissionCache CLAIM_PERMISSION_NODES = new FlagPermissionCache(false);
+    private static final FlagPermissionCache FLAG_OVERRIDE_NODES = new FlagPermissionCache(true);
+    // Identifiers only depend on the block state, entity type or item type so they are resolved once
+    private static final Map<BlockState, String> BLOCKSTATE_IDS = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<EntityType, String> LIVING_ENTITY_IDS = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<ItemType, String> ITEM_TYPE_IDS = Collections.synchronizedMap(new IdentityHashMap<>());
+    private static final Map<ItemType, String> ITEM_STACK_IDS = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    // Flag decisions made during the current tick
+    private static final PermissionDecisionCache DECISION_CACHE = new PermissionDecisionCache();
+
     private static Event currentEvent;
     private static Location<World> currentLocation;
+    // claim and permission of the last processed result, stored with cached decisions
+    private static GPClaim lastResultClaim;
+    private static String lastResultPermission;
+    private static boolean lastResultBan;
 
     public static Tristate getClaimPermission(Event event, Location<World> location, GPClaim claim, String flagPermission, Object source, Object target, User user) {
         return getClaimPermission(event, location, claim, flagPermission, source, target, user, null, false);
@@ -104,52 +122,46 @@ public static Tristate getClaimPermission(Event event, Location<World> location,
             }
         }
 
-        String sourceId = getPermissionIdentifier(source, true);
-        String targetPermission = flagPermission;
-        String targetId = getPermissionIdentifier(target);
-        String targetModPermission = null;
-        String targetMetaPermission = null;
-        if (!targetId.isEmpty()) {
-            String[] parts = targetId.split(":");
-            String targetMod = parts[0];
-            // move target meta to end of permission
-            Pattern p = Pattern.compile("\\.[\\d+]*$");
-            Matcher m = p.matcher(targetId);
-            String targetMeta = "";
-            if (m.find()) {
-                targetMeta = m.group(0);
-                targetId = targetId.replace(targetMeta, "");
-            }
-            if (!targetMeta.isEmpty()) {
-                targetMetaPermission = flagPermission + "." + targetId.replace(":", ".") + targetMeta;
-            }
-            if (!sourceId.isEmpty()) {
-                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                targetPermission += "." + targetId + ".source." + sourceId + targetMeta;
-            } else {
-                targetModPermission = flagPermission + "." + targetMod + targetMeta;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                targetPermission += "." + targetId + targetMeta;
-            }
-        } else if (!sourceId.isEmpty()) {
-            String targetMod = "";
-            if (sourceId.contains(":")) {
-                String[] parts = sourceId.split(":");
-                targetMod = parts[0];
-                targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId;
-                targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
+        final FlagPermissionCache.Nodes nodes = CLAIM_PERMISSION_NODES.get(flagPermission, getPermissionIdentifier(source, true), getPermissionIdentifier(target));
+        final String targetPermission = nodes.permission;
+        final String targetModPermission = nodes.modPermission;
+        final String targetMetaPermission = nodes.metaPermission;
+        final boolean useCache = DECISION_CACHE.canUse();
+        final UUID userId = user != null ? user.getUniqueId() : null;
+        if (useCache) {
+            final PermissionDecisionCache.Decision decision = DECISION_CACHE.get(claim, nodes, userId, type, checkOverride);
+            if (decision != null) {
+                if (decision.value == Tristate.FALSE && decision.claim != null) {
+                    if (decision.ban && user instanceof Player) {
+                        Text reason = GriefPreventionPlugin.getGlobalConfig().getConfig().bans.getReason(decision.permission);
+                        if (reason != null && !reason.isEmpty()) {
+                            ((Player) user).sendMessage(reason);
+                        }
+                    }
+                    return processResult(decision.claim, decision.permission, decision.value, user);
+                }
+                return decision.value;
             }
-            targetPermission += ".source." + sourceId;
         }
 
-        targetPermission = StringUtils.replace(targetPermission, ":", ".");
+        lastResultClaim = null;
+        lastResultPermission = null;
+        lastResultBan = false;
+        final Tristate value = getClaimPermission(claim, user, type, checkOverride, targetPermission, targetModPermission, targetMetaPermission, playerData);
+        if (useCache) {
+            DECISION_CACHE.put(claim, nodes, userId, type, checkOverride, new PermissionDecisionCache.Decision(value, lastResultClaim, lastResultPermission, lastResultBan));
+        }
+        return value;
+    }
+
+    private static Tristate getClaimPermission(GPClaim claim, User user, TrustType type, boolean checkOverride, String targetPermission, String targetModPermission, String targetMetaPermission, GPPlayerData playerData) {
         if (checkOverride) {
             Tristate override = Tristate.UNDEFINED;
             if (user != null) {
                 // check for bans first
                 override = getFlagOverride(GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(claim.getWorld().getProperties()).getWildernessClaim(), user, targetPermission, targetModPermission, targetMetaPermission);
                 if (override != Tristate.UNDEFINED) {
+                    lastResultBan = true;
                     return override;
                 }
             }
@@ -347,39 +359,12 @@ public static Tristate getFlagOverride(Event event, Location<World> location, GP
             }
         }
 
-        String targetModPermission = null;
-        String targetMetaPermission = null;
-        if (target != null && source == null) {
-            String targetId = getPermissionIdentifier(target);
-            flagPermission += "." + targetId;
-        } else if (target != null && source != null) {
-            String sourceId = getPermissionIdentifier(source, true);
-            String targetId = getPermissionIdentifier(target);
-            if (!targetId.isEmpty()) {
-                String[] parts = targetId.split(":");
-                String targetMod = parts[0];
-                if (!sourceId.isEmpty()) {
-                    // move target meta to end of permission
-                    Pattern p = Pattern.compile("\\.[\\d+]*$");
-                    Matcher m = p.matcher(targetId);
-                    String targetMeta = "";
-                    if (m.find()) {
-                        targetMeta = m.group(0);
-                        targetId = targetId.replace(targetMeta, "");
-                    }
-                    if (!targetMeta.isEmpty()) {
-                        targetMetaPermission = flagPermission + "." + targetId.replace(":", ".") + targetMeta;
-                    }
-                    targetModPermission = flagPermission + "." + targetMod + ".source." + sourceId + targetMeta;
-                    targetModPermission = StringUtils.replace(targetModPermission, ":", ".");
-                    flagPermission += "." + targetId + ".source." + sourceId + targetMeta;
-                } else {
-                    flagPermission += "." + targetId;
-                }
-            }
-        }
-
-        flagPermission = StringUtils.replace(flagPermission, ":", ".");
+        final String sourceId = source != null ? getPermissionIdentifier(source, true) : null;
+        final String targetId = target != null ? getPermissionIdentifier(target) : null;
+        final FlagPermissionCache.Nodes nodes = FLAG_OVERRIDE_NODES.get(flagPermission, sourceId, targetId);
+        flagPermission = nodes.permission;
+        final String targetModPermission = nodes.modPermission;
+        final String targetMetaPermission = nodes.metaPermission;
         Set<Context> contexts = new LinkedHashSet<>(GriefPreventionPlugin.GLOBAL_SUBJECT.getActiveContexts());
         if (claim.isWilderness()) {
             contexts.add(ClaimContexts.WILDERNESS_OVERRIDE_CONTEXT);
@@ -439,8 +424,7 @@ public static Tristate getClaimPermission(GPClaim claim, ClaimFlag flag, Subject
                 String[] parts = targetId.split(":");
                 String targetMod = parts[0];
                 // move target meta to end of permission
-                Pattern p = Pattern.compile("\\.[\\d+]*$");
-                Matcher m = p.matcher(targetId);
+                Matcher m = FlagPermissionCache.META_PATTERN.matcher(targetId);
                 String targetMeta = "";
                 if (m.find()) {
                     targetMeta = m.group(0);
@@ -464,7 +448,9 @@ public static Tristate processResult(GPClaim claim, String permission, Tristate
     }
 
     public static Tristate processResult(GPClaim claim, String permission, Tristate permissionValue, User user) {
-        if (permissionValue == Tristate.FALSE) {
+        lastResultClaim = claim;
+        lastResultPermission = permission;
+        if (permissionValue == Tristate.FALSE && GriefPreventionPlugin.debugActive) {
             if (currentEvent instanceof CollideEvent || currentEvent instanceof NotifyNeighborBlockEvent) {
                 if (claim.getWorld().getProperties().getTotalTime() % 100 == 0L) {
                     GriefPreventionPlugin.addEventLogEntry(currentEvent, claim, currentLocation, user, permission);
@@ -486,18 +472,24 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
             if (obj instanceof Entity) {
                 Entity targetEntity = (Entity) obj;
                 net.minecraft.entity.Entity mcEntity = (net.minecraft.entity.Entity) targetEntity;
-                String targetId = "";
-                if (mcEntity instanceof EntityItem) {
-                    EntityItem mcItem = (EntityItem) mcEntity;
-                    net.minecraft.item.ItemStack itemStack = (net.minecraft.item.ItemStack) mcItem.getEntityItem();
-                    if (itemStack != null && itemStack.getItem() != null) {
-                        ItemType itemType = (ItemType) itemStack.getItem();
-                        targetId = itemType.getId() + "." + itemStack.getItemDamage();
-                    }
-                } else {
-                    if (targetEntity.getType() != null) {
-                        targetId = targetEntity.getType().getId();
+                final EntityType entityType = targetEntity.getType();
+                // living targets of the same type always resolve to the same id, except pixelmon
+                if (!isSource && targetEntity instanceof Living && entityType != null && !entityType.getId().equals("pixelmon:pixelmon")) {
+                    String targetId = LIVING_ENTITY_IDS.get(entityType);
+                    if (targetId == null) {
+                        targetId = getCreatureTypeId(entityType.getId(), mcEntity).toLowerCase();
+                        LIVING_ENTITY_IDS.put(entityType, targetId);
                     }
+                    return targetId;
+                }
+                // dropped items always resolve to their item type
+                if (targetEntity instanceof Item) {
+                    return getItemTypeId(((Item) targetEntity).getItemType());
+                }
+
+                String targetId = "";
+                if (targetEntity.getType() != null) {
+                    targetId = targetEntity.getType().getId();
                 }
                 // Workaround for pixelmon using same class for most entities.
                 // In this circumstance, we will use the entity name instead
@@ -505,19 +497,7 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                     targetId = "pixelmon:" + mcEntity.getName().toLowerCase();
                 }
                 if (!isSource && targetEntity instanceof Living) {
-                    for (EnumCreatureType type : EnumCreatureType.values()) {
-                        if (SpongeImplHooks.isCreatureOfType(mcEntity, type)) {
-                            String[] parts = targetId.split(":");
-                            if (parts.length > 1) {
-                                targetId =  parts[0] + ":" + GPFlags.SPAWN_TYPES.inverse().get(type) + ":" + parts[1];
-                                break;
-                            }
-                        }
-                    }
-                }
-
-                if (targetEntity instanceof Item) {
-                    targetId = ((Item) targetEntity).getItemType().getId();
+                    targetId = getCreatureTypeId(targetId, mcEntity);
                 }
 
                 return targetId.toLowerCase();
@@ -540,34 +520,16 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
                 return targetId;
             } else if (obj instanceof BlockSnapshot) {
                 BlockSnapshot blockSnapshot = (BlockSnapshot) obj;
-                BlockState blockstate = blockSnapshot.getState();
-                String targetId = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
-                return targetId.toLowerCase();
+                return getBlockStateId(blockSnapshot.getState());
             } else if (obj instanceof BlockState) {
-                BlockState blockstate = (BlockState) obj;
-                String targetId = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
-                return targetId.toLowerCase();
+                return getBlockStateId((BlockState) obj);
             } else if (obj instanceof LocatableBlock) {
-                LocatableBlock locatableBlock = (LocatableBlock) obj;
-                BlockState blockstate = locatableBlock.getBlockState();
-                String targetId = blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate);
-                return targetId.toLowerCase();
+                return getBlockStateId(((LocatableBlock) obj).getBlockState());
             } else if (obj instanceof ItemStack) {
                 ItemStack itemstack = (ItemStack) obj;
-                String targetId = "";
-                if (itemstack.getItem() instanceof ItemBlock) {
-                    ItemBlock itemBlock = (ItemBlock) itemstack.getItem();
-                    net.minecraft.item.ItemStack nmsStack = (net.minecraft.item.ItemStack)(Object) itemstack;
-                    BlockState blockState = ((BlockState) itemBlock.getBlock().getStateFromMeta(nmsStack.getItemDamage()));
-                    targetId = blockState.getType().getId() + "." + nmsStack.getItemDamage();//.replace("[", ".[");
-                } else {
-                    targetId = itemstack.getItem().getId() + "." + ((net.minecraft.item.ItemStack)(Object) itemstack).getItemDamage();
-                }
-
-                return targetId.toLowerCase();
+                return getItemStackId(itemstack.getItem()) + "." + ((net.minecraft.item.ItemStack)(Object) itemstack).getItemDamage();
             } else if (obj instanceof ItemType) {
-                String targetId = ((ItemType) obj).getId().toLowerCase();
-                return targetId;
+                return getItemTypeId((ItemType) obj);
             } else if (obj instanceof DamageSource) {
                 final DamageSource damageSource = (DamageSource) obj;
                 String damageTypeId = damageSource.getType().getId();
@@ -590,6 +552,75 @@ public static String getPermissionIdentifier(Object obj, boolean isSource) {
         return "";
     }
 
+    private static String getBlockStateId(BlockState blockstate) {
+        String targetId = BLOCKSTATE_IDS.get(blockstate);
+        if (targetId == null) {
+            targetId = (blockstate.getType().getId() + "." + BlockUtils.getBlockStateMeta(blockstate)).toLowerCase();
+            BLOCKSTATE_IDS.put(blockstate, targetId);
+        }
+
+        return targetId;
+    }
+
+    private static String getItemTypeId(ItemType itemType) {
+        String targetId = ITEM_TYPE_IDS.get(itemType);
+        if (targetId == null) {
+            targetId = itemType.getId().toLowerCase();
+            ITEM_TYPE_IDS.put(itemType, targetId);
+        }
+
+        return targetId;
+    }
+
+    // Item stacks of a block item use the block's id, the damage value is appended by the caller
+    private static String getItemStackId(ItemType itemType) {
+        String targetId = ITEM_STACK_IDS.get(itemType);
+        if (targetId == null) {
+            if (itemType instanceof ItemBlock) {
+                targetId = ((BlockType) ((ItemBlock) itemType).getBlock()).getId().toLowerCase();
+            } else {
+                targetId = itemType.getId().toLowerCase();
+            }
+            ITEM_STACK_IDS.put(itemType, targetId);
+        }
+
+        return targetId;
+    }
+
+    // Inserts the spawn type of a living entity into its id, ex. "minecraft:monster:zombie"
+    private static String getCreatureTypeId(String targetId, net.minecraft.entity.Entity mcEntity) {
+        for (EnumCreatureType type : EnumCreatureType.values()) {
+            if (SpongeImplHooks.isCreatureOfType(mcEntity, type)) {
+                String[] parts = targetId.split(":");
+                if (parts.length > 1) {
+                    return parts[0] + ":" + GPFlags.SPAWN_TYPES.inverse().get(type) + ":" + parts[1];
+                }
+            }
+        }
+
+        return targetId;
+    }
+
+    // Called on reload as mods and configs may change what identifiers resolve to
+    public static void clearIdentifierCache() {
+        BLOCKSTATE_IDS.clear();
+        LIVING_ENTITY_IDS.clear();
+        ITEM_TYPE_IDS.clear();
+        ITEM_STACK_IDS.clear();
+        CLAIM_PERMISSION_NODES.clear();
+        FLAG_OVERRIDE_NODES.clear();
+        DECISION_CACHE.invalidate();
+    }
+
+    // Must be called whenever flags, trusts or options change
+    public static void invalidateDecisionCache() {
+        DECISION_CACHE.invalidate();
+    }
+
+    public static PermissionDecisionCache getDecisionCache() {
+        return DECISION_CACHE;
+    }
+
     public static ClaimFlag getFlagFromPermission(String flagPermission) {
         for (ClaimFlag flag : ClaimFlag.values()) {
             if (flagPermission.contains(flag.toString())) {
@@ -636,8 +667,7 @@ public static String getPermission(Object source, Object target, String flagPerm
         if (!targetId.isEmpty()) {
             if (!sourceId.isEmpty()) {
                 // move target meta to end of permission
-                Pattern p = Pattern.compile("\\.[\\d+]*$");
-                Matcher m = p.matcher(targetId);
+                Matcher m = FlagPermissionCache.META_PATTERN.matcher(targetId);
                 String targetMeta = "";
                 if (m.find()) {
                     targetMeta = m.group(0);
@@ -653,8 +683,7 @@ public static String getPermission(Object source, Object target, String flagPerm
     }
 
     public static String getIdentifierWithoutMeta(String targetId) {
-        Pattern p = Pattern.compile("\\.[\\d+]*$");
-        Matcher m = p.matcher(targetId);
+        Matcher m = FlagPermissionCache.META_PATTERN.matcher(targetId);
         String targetMeta = "";
         if (m.find()) {
             targetMeta = m.group(0);
@@ -0,0 +1,168 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.permission;
+
+import com.google.common.collect.Maps;
+import me.ryanhamshire.griefprevention.api.claim.TrustType;
+import me.ryanhamshire.griefprevention.claim.GPClaim;
+import org.spongepowered.api.util.Tristate;
+import org.spongepowered.common.SpongeImpl;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+// Remembers flag decisions made during the current server tick.
+// Redstone, hoppers and fluids repeat the exact same checks many times per tick, so
+// each (claim, permission nodes, user, trust type) tuple is only resolved once per tick.
+// Decisions are also dropped whenever flags, trusts or options change through GP.
+// Only used from the main thread.
+public class PermissionDecisionCache {
+
+    private static final int MAX_ENTRIES = 20000;
+
+    private final Map<Key, Decision> decisions = Maps.newHashMap();
+    // reused for lookups so a hit does not allocate
+    private final Key lookupKey = new Key();
+    private int tick = -1;
+    private int cachedGeneration = 0;
+    // bumped by invalidate, which may be called from any thread
+    private volatile int generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    public boolean canUse() {
+        return SpongeImpl.getServer().isCallingFromMinecraftThread();
+    }
+
+    @Nullable
+    public Decision get(GPClaim claim, FlagPermissionCache.Nodes nodes, @Nullable UUID userId, @Nullable TrustType type, boolean checkOverride) {
+        final int currentTick = SpongeImpl.getServer().getTickCounter();
+        final int currentGeneration = this.generation;
+        if (this.tick != currentTick || this.cachedGeneration != currentGeneration) {
+            this.decisions.clear();
+            this.tick = currentTick;
+            this.cachedGeneration = currentGeneration;
+        }
+
+        final Decision decision = this.decisions.get(this.lookupKey.set(claim, nodes, userId, type, checkOverride));
+        if (decision != null) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+
+        return decision;
+    }
+
+    public void put(GPClaim claim, FlagPermissionCache.Nodes nodes, @Nullable UUID userId, @Nullable TrustType type, boolean checkOverride, Decision decision) {
+        if (this.decisions.size() >= MAX_ENTRIES) {
+            this.decisions.clear();
+        }
+
+        this.decisions.put(new Key().set(claim, nodes, userId, type, checkOverride), decision);
+    }
+
+    public void invalidate() {
+        this.generation++;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public double getHitRate() {
+        final long total = this.hits + this.misses;
+        return total == 0 ? 0 : (double) this.hits / total;
+    }
+
+    // The result of a flag check along with what is needed to replay its side effects
+    public static class Decision {
+
+        public final Tristate value;
+        // claim and permission that produced value, used for event logging
+        @Nullable public final GPClaim claim;
+        @Nullable public final String permission;
+        // whether value came from a wilderness ban, which notifies players
+        public final boolean ban;
+
+        public Decision(Tristate value, @Nullable GPClaim claim, @Nullable String permission, boolean ban) {
+            this.value = value;
+            this.claim = claim;
+            this.permission = permission;
+            this.ban = ban;
+        }
+    }
+
+    private static class Key {
+
+        private GPClaim claim;
+        private FlagPermissionCache.Nodes nodes;
+        private UUID userId;
+        private TrustType type;
+        private boolean checkOverride;
+
+        Key set(GPClaim claim, FlagPermissionCache.Nodes nodes, @Nullable UUID userId, @Nullable TrustType type, boolean checkOverride) {
+            this.claim = claim;
+            this.nodes = nodes;
+            this.userId = userId;
+            this.type = type;
+            this.checkOverride = checkOverride;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            final Key other = (Key) o;
+            return this.claim == other.claim
+                    && this.nodes == other.nodes
+                    && this.type == other.type
+                    && this.checkOverride == other.checkOverride
+                    && Objects.equals(this.userId, other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(this.claim);
+            result = 31 * result + System.identityHashCode(this.nodes);
+            result = 31 * result + (this.userId != null ? this.userId.hashCode() : 0);
+            result = 31 * result + (this.type != null ? this.type.hashCode() : 0);
+            return 31 * result + (this.checkOverride ? 1 : 0);
+        }
+    }
+}
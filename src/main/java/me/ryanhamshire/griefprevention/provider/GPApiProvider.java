@@ -78,12 +78,15 @@ public BankTransaction.Builder createBankTransactionBuilder() {
 
     @Override
     public Optional<PlayerData> getGlobalPlayerData(UUID playerUniqueId) {
-        return Optional.ofNullable(DataStore.GLOBAL_PLAYER_DATA.get(playerUniqueId));
+        if (!DataStore.USE_GLOBAL_PLAYER_STORAGE) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(null).getOrLoadPlayerData(playerUniqueId));
     }
 
     @Override
     public Optional<PlayerData> getWorldPlayerData(WorldProperties worldProperties, UUID playerUniqueId) {
-        return Optional.ofNullable(GriefPreventionPlugin.instance.dataStore.getPlayerData(worldProperties, playerUniqueId));
+        return Optional.ofNullable(GriefPreventionPlugin.instance.dataStore.getClaimWorldManager(worldProperties).getOrLoadPlayerData(playerUniqueId));
     }
 
     @Override
@@ -28,87 +28,108 @@
 import me.ryanhamshire.griefprevention.DataStore;
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
-import me.ryanhamshire.griefprevention.configuration.PlayerStorageData;
+import me.ryanhamshire.griefprevention.configuration.PlayerDataConfig;
 import me.ryanhamshire.griefprevention.logging.CustomLogEntryTypes;
-import me.ryanhamshire.griefprevention.permission.GPOptions;
-import me.ryanhamshire.griefprevention.util.PlayerUtils;
 import org.spongepowered.api.Sponge;
-import org.spongepowered.api.data.manipulator.mutable.entity.VehicleData;
 import org.spongepowered.api.data.property.block.MatterProperty;
-import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.scheduler.Task;
 import org.spongepowered.api.world.Location;
 import org.spongepowered.api.world.World;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 //FEATURE: give players claim blocks for playing, as long as they're not away from their computer
 
 //runs every 5 minutes in the main thread, grants blocks per hour / 12 to each online player who appears to be actively playing
 public class DeliverClaimBlocksTask implements Runnable {
 
-    private Player player;
+    // players handled per tick while a delivery pass is running
+    private static final int PLAYERS_PER_TICK = 20;
 
-    public DeliverClaimBlocksTask(Player player) {
-        this.player = player;
-    }
+    private final List<Player> pending = new ArrayList<>();
+    private int nextPlayer;
+    private boolean delivering = false;
 
     @Override
     public void run() {
-        if (this.player == null) {
-            for (World world : Sponge.getServer().getWorlds()) {
-                // if no player specified, this task will create a player-specific task
-                // for each player, scheduled one tick apart
-                int i = 0;
-                for (Entity entity : world.getEntities()) {
-                    if (!(entity instanceof Player)) {
-                        continue;
-                    }
+        // a pass still working through a previous snapshot picks up the new players
+        this.pending.addAll(Sponge.getServer().getOnlinePlayers());
+        if (this.delivering || this.pending.isEmpty()) {
+            return;
+        }
+
+        this.delivering = true;
+        Sponge.getScheduler().createTaskBuilder().intervalTicks(1).execute(new DeliveryPass())
+                .submit(GriefPreventionPlugin.instance);
+    }
 
-                    Player player = (Player) entity;
-                    int accrualPerHour = PlayerUtils.getOptionIntValue(player, GPOptions.BLOCKS_ACCRUED_PER_HOUR, 120);
-                    if (accrualPerHour > 0) {
-                        DeliverClaimBlocksTask newTask = new DeliverClaimBlocksTask(player);
-                        Sponge.getGame().getScheduler().createTaskBuilder().delayTicks(i++).execute(newTask)
-                                .submit(GriefPreventionPlugin.instance);
-                    }
+    private class DeliveryPass implements Consumer<Task> {
+
+        @Override
+        public void accept(Task task) {
+            final List<Player> players = DeliverClaimBlocksTask.this.pending;
+            final int end = Math.min(DeliverClaimBlocksTask.this.nextPlayer + PLAYERS_PER_TICK, players.size());
+            for (int i = DeliverClaimBlocksTask.this.nextPlayer; i < end; i++) {
+                final Player player = players.get(i);
+                players.set(i, null);
+                if (player.isOnline()) {
+                    deliverClaimBlocks(player);
                 }
             }
+
+            DeliverClaimBlocksTask.this.nextPlayer = end;
+            if (end == players.size()) {
+                players.clear();
+                DeliverClaimBlocksTask.this.nextPlayer = 0;
+                DeliverClaimBlocksTask.this.delivering = false;
+                task.cancel();
+            }
         }
+    }
 
-        // otherwise, deliver claim blocks to the specified player
-        else {
-            DataStore dataStore = GriefPreventionPlugin.instance.dataStore;
-            GPPlayerData playerData = dataStore.getOrCreatePlayerData(player.getWorld(), player.getUniqueId());
-            Location<World> lastLocation = playerData.lastAfkCheckLocation;
-            // if he's not in a vehicle and has moved at least three blocks since the last check and he's not being pushed around by fluids
-            Optional<MatterProperty> matterProperty = player.getLocation().getBlock().getProperty(MatterProperty.class);
-            if (!player.get(VehicleData.class).isPresent() &&
-                    (lastLocation == null || lastLocation.getPosition().distanceSquared(player.getLocation().getPosition()) >= 0) &&
-                    matterProperty.isPresent() && matterProperty.get().getValue() != MatterProperty.Matter.LIQUID) {
-                // add blocks
-                int accruedBlocks = playerData.optionBlocksAccruedPerHour / 12;
-                if (accruedBlocks < 0) {
-                    accruedBlocks = 1;
-                }
+    // only updates the player's storage, which is saved along with the rest of their data
+    private static void deliverClaimBlocks(Player player) {
+        DataStore dataStore = GriefPreventionPlugin.instance.dataStore;
+        GPPlayerData playerData = dataStore.getOrCreatePlayerData(player.getWorld(), player.getUniqueId());
+        if (playerData.optionBlocksAccruedPerHour <= 0) {
+            return;
+        }
 
-                int currentTotal = playerData.getAccruedClaimBlocks();
-                if ((currentTotal + accruedBlocks) > playerData.optionMaxAccruedBlocks) {
-                    PlayerStorageData playerStorage = playerData.getStorageData();
-                    playerStorage.getConfig().setAccruedClaimBlocks(playerData.optionMaxAccruedBlocks);
-                    playerData.lastAfkCheckLocation = player.getLocation();
-                    return;
-                }
+        final Location<World> location = player.getLocation();
+        // remember current location for next time
+        playerData.lastAfkCheckLocation = location;
+        // if he's not in a vehicle and he's not being pushed around by fluids, cheapest check first
+        if (player.getVehicle().isPresent()) {
+            GriefPreventionPlugin.addLogEntry(player.getName() + " isn't active enough.", CustomLogEntryTypes.Debug, false);
+            return;
+        }
+        Optional<MatterProperty> matterProperty = location.getBlock().getProperty(MatterProperty.class);
+        if (!matterProperty.isPresent() || matterProperty.get().getValue() == MatterProperty.Matter.LIQUID) {
+            GriefPreventionPlugin.addLogEntry(player.getName() + " isn't active enough.", CustomLogEntryTypes.Debug, false);
+            return;
+        }
 
-                GriefPreventionPlugin.addLogEntry("Delivering " + accruedBlocks + " blocks to " + player.getName(), CustomLogEntryTypes.Debug, false);
-                PlayerStorageData playerStorage = playerData.getStorageData();
-                playerStorage.getConfig().setAccruedClaimBlocks(playerStorage.getConfig().getAccruedClaimBlocks() + accruedBlocks);
-            } else {
-                GriefPreventionPlugin.addLogEntry(player.getName() + " isn't active enough.", CustomLogEntryTypes.Debug, false);
-            }
+        // add blocks
+        int accruedBlocks = playerData.optionBlocksAccruedPerHour / 12;
+        if (accruedBlocks < 0) {
+            accruedBlocks = 1;
+        }
 
-            // remember current location for next time
-            playerData.lastAfkCheckLocation = player.getLocation();
+        final PlayerDataConfig playerConfig = playerData.getStorageData().getConfig();
+        final int currentTotal = playerConfig.getAccruedClaimBlocks();
+        int newTotal = currentTotal + accruedBlocks;
+        if (newTotal > playerData.optionMaxAccruedBlocks) {
+            newTotal = playerData.optionMaxAccruedBlocks;
+        } else {
+            GriefPreventionPlugin.addLogEntry("Delivering " + accruedBlocks + " blocks to " + player.getName(), CustomLogEntryTypes.Debug, false);
+        }
+        // only mark the storage dirty when the total actually changes
+        if (newTotal != currentTotal) {
+            playerConfig.setAccruedClaimBlocks(newTotal);
         }
     }
 }
@@ -24,6 +24,7 @@
  */
 package me.ryanhamshire.griefprevention.util;
 
+import me.ryanhamshire.griefprevention.claim.ClaimCursor;
 import org.spongepowered.api.util.Tristate;
 import org.spongepowered.common.SpongeImpl;
 
@@ -32,6 +33,7 @@ public class BlockPosCache {
     private int lastTickCounter;
     private short lastBlockPos;
     private Tristate lastResult = Tristate.UNDEFINED;
+    private ClaimCursor claimCursor;
 
     public BlockPosCache(short pos) {
         this.lastBlockPos = pos;
@@ -42,6 +44,18 @@ public void setLastResult(Tristate result) {
         this.lastResult = result;
     }
 
+    public int getLastTick() {
+        return this.lastTickCounter;
+    }
+
+    public ClaimCursor getClaimCursor() {
+        return this.claimCursor;
+    }
+
+    public void setClaimCursor(ClaimCursor cursor) {
+        this.claimCursor = cursor;
+    }
+
     public Tristate getCacheResult(short pos) {
         int currentTick = SpongeImpl.getServer().getTickCounter();
         if (this.lastBlockPos != pos) {
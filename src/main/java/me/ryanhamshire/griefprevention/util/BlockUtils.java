@@ -27,7 +27,6 @@
 
 import com.flowpowered.math.vector.Vector3i;
 import com.google.common.collect.Maps;
-import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
 import me.ryanhamshire.griefprevention.GPPlayerData;
 import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
 import me.ryanhamshire.griefprevention.claim.GPClaim;
@@ -67,7 +66,7 @@ public class BlockUtils {
     private static final short XZ_MASK = 0xF;
     private static final short Y_SHORT_MASK = 0xFF;
 
-    public static final Map<Integer, BlockPosCache> ENTITY_BLOCK_CACHE = new Int2ObjectArrayMap<>();
+    public static final EntityBlockCache ENTITY_BLOCK_CACHE = new EntityBlockCache();
     private static final Map<BlockState, Integer> BLOCKSTATE_META_CACHE = Maps.newHashMap();
     private static final String locationStringDelimiter = ";";
 
@@ -0,0 +1,87 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.util;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import org.spongepowered.common.SpongeImpl;
+
+import javax.annotation.Nullable;
+
+// Entity id -> last block collide result of that entity.
+// Entries are normally dropped by EntityRemovalListener, but as removals can be missed
+// entries unused for EXPIRE_TICKS are swept and the cache never exceeds MAX_ENTRIES.
+public class EntityBlockCache {
+
+    private static final int MAX_ENTRIES = 16384;
+    private static final int EXPIRE_TICKS = 200;
+
+    private final Int2ObjectOpenHashMap<BlockPosCache> entries = new Int2ObjectOpenHashMap<>(1024);
+    private int lastSweepTick = 0;
+
+    @Nullable
+    public BlockPosCache get(int entityId) {
+        return this.entries.get(entityId);
+    }
+
+    public void put(int entityId, BlockPosCache cache) {
+        final int currentTick = SpongeImpl.getServer().getTickCounter();
+        if (currentTick - this.lastSweepTick >= EXPIRE_TICKS) {
+            this.sweep(currentTick);
+        }
+        if (this.entries.size() >= MAX_ENTRIES) {
+            // still full after sweep, everything left is active so start over
+            this.sweep(currentTick);
+            if (this.entries.size() >= MAX_ENTRIES) {
+                this.entries.clear();
+            }
+        }
+
+        this.entries.put(entityId, cache);
+    }
+
+    public void remove(int entityId) {
+        this.entries.remove(entityId);
+    }
+
+    public int size() {
+        return this.entries.size();
+    }
+
+    public void clear() {
+        this.entries.clear();
+    }
+
+    private void sweep(int currentTick) {
+        final ObjectIterator<Int2ObjectMap.Entry<BlockPosCache>> iterator = this.entries.int2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            if (currentTick - iterator.next().getValue().getLastTick() >= EXPIRE_TICKS) {
+                iterator.remove();
+            }
+        }
+        this.lastSweepTick = currentTick;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of GriefPrevention, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) bloodmc
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package me.ryanhamshire.griefprevention.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import me.ryanhamshire.griefprevention.GriefPreventionPlugin;
+import org.spongepowered.api.Sponge;
+import org.spongepowered.api.entity.Entity;
+import org.spongepowered.api.entity.living.player.Player;
+import org.spongepowered.api.entity.living.player.User;
+import org.spongepowered.api.service.user.UserStorageService;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+// UUID -> User for tracked creators and notifiers, so resolving the owner of a block
+// or entity doesn't go through the user storage service, which may hit disk, on every event.
+// Users are weakly held so the cache never keeps an offline user alive, online players are
+// added on join and removed on disconnect as their Player instance becomes stale.
+// UUIDs without a user are remembered for a short time as well.
+public class UserCache {
+
+    private static final int MAX_ENTRIES = 2000;
+    private static final int EXPIRE_MINUTES = 10;
+    private static final int MISSING_EXPIRE_SECONDS = 60;
+
+    private final Cache<UUID, User> users = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .weakValues()
+            .build();
+    private final Cache<UUID, Boolean> missingUsers = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterWrite(MISSING_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+    private UserStorageService userStorageService;
+    private long hitCount;
+    private long missCount;
+
+    @Nullable
+    public User get(@Nullable UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        if (uuid.equals(GriefPreventionPlugin.WORLD_USER_UUID)) {
+            return GriefPreventionPlugin.WORLD_USER;
+        }
+
+        User user = this.users.getIfPresent(uuid);
+        if (user != null || this.missingUsers.getIfPresent(uuid) != null) {
+            this.hitCount++;
+            return user;
+        }
+
+        this.missCount++;
+        if (this.userStorageService == null) {
+            this.userStorageService = Sponge.getServiceManager().provide(UserStorageService.class).get();
+        }
+        user = this.userStorageService.get(uuid).orElse(null);
+        if (user == null) {
+            this.missingUsers.put(uuid, Boolean.TRUE);
+        } else {
+            this.users.put(uuid, user);
+        }
+        return user;
+    }
+
+    // Resolves the user tracked as creator of entity
+    @Nullable
+    public User getCreator(Entity entity) {
+        return this.get(entity.getCreator().orElse(null));
+    }
+
+    public void addPlayer(Player player) {
+        this.missingUsers.invalidate(player.getUniqueId());
+        this.users.put(player.getUniqueId(), player);
+    }
+
+    public void removePlayer(UUID playerUniqueId) {
+        this.users.invalidate(playerUniqueId);
+    }
+
+    public void clear() {
+        this.users.invalidateAll();
+        this.missingUsers.invalidateAll();
+    }
+
+    public long getSize() {
+        return this.users.size();
+    }
+
+    public long getHitCount() {
+        return this.hitCount;
+    }
+
+    // lookups that had to go through the user storage service
+    public long getMissCount() {
+        return this.missCount;
+    }
+
+    public double getHitRate() {
+        final long requests = this.hitCount + this.missCount;
+        return requests == 0 ? 1.0 : (double) this.hitCount / requests;
+    }
+}